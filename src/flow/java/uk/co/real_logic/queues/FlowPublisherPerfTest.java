@@ -0,0 +1,154 @@
+/*
+ * Copyright 2016 Real Logic Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.co.real_logic.queues;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.SubmissionPublisher;
+
+/**
+ * Compares the throughput of {@link OneToOneQueuePublisher} drained on an agent thread with a
+ * {@link SubmissionPublisher} which delivers via an executor, using the same subscriber and request batch.
+ * <p>
+ * Usage: java uk.co.real_logic.queues.FlowPublisherPerfTest [request batch]
+ */
+public class FlowPublisherPerfTest
+{
+    public static final int QUEUE_CAPACITY = 32 * 1024;
+    public static final int REPETITIONS = 20 * 1000 * 1000;
+    public static final Integer TEST_VALUE = Integer.valueOf(777);
+
+    public static void main(final String[] args) throws Exception
+    {
+        final int requestBatch = args.length > 0 ? Integer.parseInt(args[0]) : 1024;
+
+        for (int i = 0; i < 5; i++)
+        {
+            System.gc();
+            queuePublisherRun(i, requestBatch);
+        }
+
+        for (int i = 0; i < 5; i++)
+        {
+            System.gc();
+            submissionPublisherRun(i, requestBatch);
+        }
+    }
+
+    private static void queuePublisherRun(final int runNumber, final int requestBatch) throws Exception
+    {
+        final OneToOneQueuePublisher<Integer> publisher = new OneToOneQueuePublisher<>(QUEUE_CAPACITY, requestBatch);
+        final CountingSubscriber subscriber = new CountingSubscriber(requestBatch);
+        publisher.subscribe(subscriber);
+
+        final AgentRunner runner = new AgentRunner(publisher, new YieldingIdleStrategy());
+        final Thread thread = runner.start();
+
+        final long start = System.nanoTime();
+        for (int i = 0; i < REPETITIONS; i++)
+        {
+            while (!publisher.offer(TEST_VALUE))
+            {
+                Thread.yield();
+            }
+        }
+
+        publisher.close();
+        subscriber.completed.await();
+        final long duration = System.nanoTime() - start;
+
+        runner.close();
+        thread.join();
+
+        report(runNumber, publisher, subscriber, duration);
+    }
+
+    private static void submissionPublisherRun(final int runNumber, final int requestBatch) throws Exception
+    {
+        final SubmissionPublisher<Integer> publisher =
+            new SubmissionPublisher<>(ForkJoinPool.commonPool(), QUEUE_CAPACITY);
+        final CountingSubscriber subscriber = new CountingSubscriber(requestBatch);
+        publisher.subscribe(subscriber);
+
+        final long start = System.nanoTime();
+        for (int i = 0; i < REPETITIONS; i++)
+        {
+            publisher.submit(TEST_VALUE);
+        }
+
+        publisher.close();
+        subscriber.completed.await();
+        final long duration = System.nanoTime() - start;
+
+        report(runNumber, publisher, subscriber, duration);
+    }
+
+    private static void report(
+        final int runNumber, final Object publisher, final CountingSubscriber subscriber, final long duration)
+    {
+        if (REPETITIONS != subscriber.received)
+        {
+            throw new IllegalStateException("Expected " + REPETITIONS + " but received " + subscriber.received);
+        }
+
+        final long ops = (REPETITIONS * 1000L * 1000L * 1000L) / duration;
+        System.out.format("%d - ops/sec=%,d - %s\n",
+                          Integer.valueOf(runNumber), Long.valueOf(ops), publisher.getClass().getSimpleName());
+    }
+
+    public static class CountingSubscriber implements Flow.Subscriber<Integer>
+    {
+        private final int requestBatch;
+        private final CountDownLatch completed = new CountDownLatch(1);
+        private Flow.Subscription subscription;
+        private long received;
+        private long outstanding;
+
+        public CountingSubscriber(final int requestBatch)
+        {
+            this.requestBatch = requestBatch;
+        }
+
+        public void onSubscribe(final Flow.Subscription subscription)
+        {
+            this.subscription = subscription;
+            outstanding = requestBatch;
+            subscription.request(requestBatch);
+        }
+
+        public void onNext(final Integer item)
+        {
+            received++;
+            if (--outstanding <= requestBatch / 2)
+            {
+                outstanding += requestBatch;
+                subscription.request(requestBatch);
+            }
+        }
+
+        public void onError(final Throwable throwable)
+        {
+            throwable.printStackTrace();
+            completed.countDown();
+        }
+
+        public void onComplete()
+        {
+            completed.countDown();
+        }
+    }
+}
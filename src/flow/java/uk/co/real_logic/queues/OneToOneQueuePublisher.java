@@ -0,0 +1,213 @@
+/*
+ * Copyright 2016 Real Logic Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.co.real_logic.queues;
+
+import java.util.concurrent.Flow;
+import java.util.function.Consumer;
+
+/**
+ * {@link Flow.Publisher} for a single subscriber fed from a {@link OneToOneConcurrentArrayQueue3}.
+ * <p>
+ * One thread offers elements and the publisher is run as an {@link Agent} on the consumer side, draining the queue
+ * in batches sized by the outstanding demand so elements are delivered without an executor hop per element. When
+ * demand is exhausted draining stops, the queue fills and {@link #offer(Object)} returns false to signal
+ * backpressure to the producer.
+ *
+ * @param <E> type of the elements published.
+ */
+public final class OneToOneQueuePublisher<E> implements Flow.Publisher<E>, Agent
+{
+    private final OneToOneConcurrentArrayQueue3<E> queue;
+    private final int batchLimit;
+    private final PaddedAtomicLong demand = new PaddedAtomicLong(0);
+    private final QueueSubscription subscription = new QueueSubscription();
+    private final Consumer<E> elementHandler = this::onElement;
+
+    private volatile Flow.Subscriber<? super E> subscriber;
+    private volatile boolean cancelled;
+    private volatile boolean closed;
+    private volatile Throwable pendingError;
+    private boolean terminated;
+
+    /**
+     * Construct a publisher over a new queue.
+     *
+     * @param capacity   of the queue which will be rounded up to a power of two.
+     * @param batchLimit on the number of elements delivered in one duty cycle.
+     */
+    public OneToOneQueuePublisher(final int capacity, final int batchLimit)
+    {
+        queue = new OneToOneConcurrentArrayQueue3<>(capacity);
+        this.batchLimit = batchLimit;
+    }
+
+    public void subscribe(final Flow.Subscriber<? super E> subscriber)
+    {
+        if (null == subscriber)
+        {
+            throw new NullPointerException("subscriber must not be null");
+        }
+
+        synchronized (this)
+        {
+            if (null != this.subscriber)
+            {
+                subscriber.onSubscribe(new RejectedSubscription());
+                subscriber.onError(new IllegalStateException("Only one subscriber is supported"));
+                return;
+            }
+
+            subscriber.onSubscribe(subscription);
+            this.subscriber = subscriber;
+        }
+    }
+
+    /**
+     * Offer an element for publication.
+     *
+     * @param e to be published.
+     * @return true if queued, false if the queue is full because demand is exhausted or the subscriber has cancelled.
+     */
+    public boolean offer(final E e)
+    {
+        if (closed)
+        {
+            throw new IllegalStateException("Publisher is closed");
+        }
+
+        return !cancelled && queue.offer(e);
+    }
+
+    /**
+     * Close the publisher so that the subscriber is completed once the elements already offered are delivered.
+     */
+    public void close()
+    {
+        closed = true;
+    }
+
+    /**
+     * Outstanding demand from the subscriber, Long.MAX_VALUE being unbounded.
+     *
+     * @return outstanding demand from the subscriber.
+     */
+    public long demand()
+    {
+        return demand.get();
+    }
+
+    public boolean isCancelled()
+    {
+        return cancelled;
+    }
+
+    public int doWork()
+    {
+        final Flow.Subscriber<? super E> subscriber = this.subscriber;
+        if (null == subscriber || terminated)
+        {
+            return 0;
+        }
+
+        if (cancelled)
+        {
+            terminated = true;
+            queue.clear();
+            return 0;
+        }
+
+        final Throwable pendingError = this.pendingError;
+        if (null != pendingError)
+        {
+            terminated = true;
+            subscriber.onError(pendingError);
+            return 0;
+        }
+
+        final long currentDemand = demand.get();
+        int workCount = 0;
+        if (currentDemand > 0)
+        {
+            workCount = queue.drain(elementHandler, (int)Math.min(currentDemand, batchLimit));
+            if (workCount > 0 && Long.MAX_VALUE != currentDemand)
+            {
+                demand.addAndGet(-workCount);
+            }
+        }
+
+        if (0 == workCount && closed && queue.isEmpty())
+        {
+            terminated = true;
+            subscriber.onComplete();
+        }
+
+        return workCount;
+    }
+
+    public String roleName()
+    {
+        return "queue-publisher";
+    }
+
+    private void onElement(final E e)
+    {
+        if (!cancelled)
+        {
+            subscriber.onNext(e);
+        }
+    }
+
+    final class QueueSubscription implements Flow.Subscription
+    {
+        public void request(final long n)
+        {
+            if (n <= 0)
+            {
+                pendingError = new IllegalArgumentException("Request must be positive: " + n);
+                return;
+            }
+
+            long current;
+            long updated;
+            do
+            {
+                current = demand.get();
+                updated = current + n;
+                if (updated < 0)
+                {
+                    updated = Long.MAX_VALUE;
+                }
+            }
+            while (!demand.compareAndSet(current, updated));
+        }
+
+        public void cancel()
+        {
+            cancelled = true;
+        }
+    }
+
+    static final class RejectedSubscription implements Flow.Subscription
+    {
+        public void request(final long n)
+        {
+        }
+
+        public void cancel()
+        {
+        }
+    }
+}
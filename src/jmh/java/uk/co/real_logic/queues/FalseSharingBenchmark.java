@@ -0,0 +1,145 @@
+/*
+ * Copyright 2016 Real Logic Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.co.real_logic.queues;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Two threads each updating their own single writer counter, as a producer and consumer do with tail and head.
+ * <p>
+ * The unpadded counters are plain {@link AtomicLong}s allocated one after the other so they share a cache line and
+ * each update invalidates the line in the other core. The trailing padded counters have the previous layout of
+ * {@link PaddedAtomicLong}, an AtomicLong subclass with padding fields after the value, which the JVM may reorder
+ * and which leaves the value unprotected from whatever is allocated just before it. The padded counters are the
+ * current {@link PaddedAtomicLong} with padding on both sides held in place by the class hierarchy. Run with at least
+ * two cores available.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(3)
+@State(Scope.Group)
+public class FalseSharingBenchmark
+{
+    private AtomicLong unpaddedCounter1;
+    private AtomicLong unpaddedCounter2;
+    private TrailingPaddedAtomicLong trailingPaddedCounter1;
+    private TrailingPaddedAtomicLong trailingPaddedCounter2;
+    private PaddedAtomicLong paddedCounter1;
+    private PaddedAtomicLong paddedCounter2;
+
+    /**
+     * Layout of {@link PaddedAtomicLong} before the padding was moved into the class hierarchy.
+     */
+    @SuppressWarnings("serial")
+    private static final class TrailingPaddedAtomicLong extends AtomicLong
+    {
+        public volatile long p1, p2, p3, p4, p5, p6 = 7;
+    }
+
+    @Setup(Level.Trial)
+    public void setup()
+    {
+        unpaddedCounter1 = new AtomicLong();
+        unpaddedCounter2 = new AtomicLong();
+        trailingPaddedCounter1 = new TrailingPaddedAtomicLong();
+        trailingPaddedCounter2 = new TrailingPaddedAtomicLong();
+        paddedCounter1 = new PaddedAtomicLong();
+        paddedCounter2 = new PaddedAtomicLong();
+    }
+
+    @Benchmark
+    @Group("unpadded")
+    @GroupThreads(1)
+    public long unpaddedWriter1()
+    {
+        final long value = unpaddedCounter1.get() + 1;
+        unpaddedCounter1.lazySet(value);
+
+        return value;
+    }
+
+    @Benchmark
+    @Group("unpadded")
+    @GroupThreads(1)
+    public long unpaddedWriter2()
+    {
+        final long value = unpaddedCounter2.get() + 1;
+        unpaddedCounter2.lazySet(value);
+
+        return value;
+    }
+
+    @Benchmark
+    @Group("trailingPadded")
+    @GroupThreads(1)
+    public long trailingPaddedWriter1()
+    {
+        final long value = trailingPaddedCounter1.get() + 1;
+        trailingPaddedCounter1.lazySet(value);
+
+        return value;
+    }
+
+    @Benchmark
+    @Group("trailingPadded")
+    @GroupThreads(1)
+    public long trailingPaddedWriter2()
+    {
+        final long value = trailingPaddedCounter2.get() + 1;
+        trailingPaddedCounter2.lazySet(value);
+
+        return value;
+    }
+
+    @Benchmark
+    @Group("padded")
+    @GroupThreads(1)
+    public long paddedWriter1()
+    {
+        final long value = paddedCounter1.get() + 1;
+        paddedCounter1.lazySet(value);
+
+        return value;
+    }
+
+    @Benchmark
+    @Group("padded")
+    @GroupThreads(1)
+    public long paddedWriter2()
+    {
+        final long value = paddedCounter2.get() + 1;
+        paddedCounter2.lazySet(value);
+
+        return value;
+    }
+}
@@ -0,0 +1,98 @@
+/*
+ * Copyright 2016 Real Logic Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.co.real_logic.queues;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Control;
+
+import java.util.Queue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput and average time for the queues which support many producers and one consumer.
+ * <p>
+ * The queue option is as for {@link QueuePerfTest}. Thread counts can be changed with the JMH -tg option, e.g. -tg 2,1.
+ * The unbounded options 6 and 7 are left out as explained for {@link OneToOneQueueBenchmark}.
+ */
+@BenchmarkMode({ Mode.Throughput, Mode.AverageTime })
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(3)
+@State(Scope.Group)
+public class ManyToOneQueueBenchmark
+{
+    public static final Integer TEST_VALUE = QueuePerfTest.TEST_VALUE;
+
+    @Param({ "4", "5", "8", "9", "12", "13", "15" })
+    public String queueOption;
+
+    @Param({ "1024", "32768" })
+    public int capacity;
+
+    private Queue<Integer> queue;
+
+    @Setup(Level.Trial)
+    public void setup()
+    {
+        queue = QueuePerfTest.createQueue(queueOption, capacity);
+    }
+
+    @TearDown(Level.Iteration)
+    public void drain()
+    {
+        queue.clear();
+    }
+
+    @Benchmark
+    @Group("manyToOne")
+    @GroupThreads(2)
+    public void offer(final Control control)
+    {
+        while (!queue.offer(TEST_VALUE) && !control.stopMeasurement)
+        {
+            Thread.yield();
+        }
+    }
+
+    @Benchmark
+    @Group("manyToOne")
+    @GroupThreads(1)
+    public Integer poll(final Control control)
+    {
+        Integer result;
+        while (null == (result = queue.poll()) && !control.stopMeasurement)
+        {
+            Thread.yield();
+        }
+
+        return result;
+    }
+}
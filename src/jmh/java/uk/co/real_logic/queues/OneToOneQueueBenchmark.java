@@ -0,0 +1,102 @@
+/*
+ * Copyright 2016 Real Logic Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.co.real_logic.queues;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Control;
+
+import java.util.Queue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput and average time for each queue with one producer and one consumer.
+ * <p>
+ * The queue option is as for {@link QueuePerfTest}. Thread counts must not be changed with -tg as options 1 to 3,
+ * 11 and 14 only support a single producer and a single consumer.
+ * <p>
+ * The unbounded options 6, 7 and 10 are left out. They never push back on the producer, so when it outruns the
+ * consumer the queue grows without limit and the results measure allocation and GC rather than the queue, and the
+ * capacity parameter does not bound them.
+ */
+@BenchmarkMode({ Mode.Throughput, Mode.AverageTime })
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(3)
+@State(Scope.Group)
+public class OneToOneQueueBenchmark
+{
+    public static final Integer TEST_VALUE = QueuePerfTest.TEST_VALUE;
+
+    @Param({ "1", "2", "3", "4", "5", "8", "9", "11", "12", "14" })
+    public String queueOption;
+
+    @Param({ "1024", "32768" })
+    public int capacity;
+
+    private Queue<Integer> queue;
+
+    @Setup(Level.Trial)
+    public void setup()
+    {
+        queue = QueuePerfTest.createQueue(queueOption, capacity);
+    }
+
+    @TearDown(Level.Iteration)
+    public void drain()
+    {
+        queue.clear();
+    }
+
+    @Benchmark
+    @Group("oneToOne")
+    @GroupThreads(1)
+    public void offer(final Control control)
+    {
+        while (!queue.offer(TEST_VALUE) && !control.stopMeasurement)
+        {
+            Thread.yield();
+        }
+    }
+
+    @Benchmark
+    @Group("oneToOne")
+    @GroupThreads(1)
+    public Integer poll(final Control control)
+    {
+        Integer result;
+        while (null == (result = queue.poll()) && !control.stopMeasurement)
+        {
+            Thread.yield();
+        }
+
+        return result;
+    }
+}
@@ -0,0 +1,256 @@
+/*
+ * Copyright 2016 Real Logic Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.co.real_logic.queues;
+
+import uk.co.real_logic.queues.OneToOneConcurrentArrayQueue3.PaddedLong;
+
+import java.nio.ByteBuffer;
+
+import static uk.co.real_logic.queues.OneToOneRingBuffer.ALIGNMENT;
+import static uk.co.real_logic.queues.OneToOneRingBuffer.HEADER_LENGTH;
+import static uk.co.real_logic.queues.OneToOneRingBuffer.LENGTH_OFFSET;
+import static uk.co.real_logic.queues.OneToOneRingBuffer.PADDING_MSG_TYPE_ID;
+import static uk.co.real_logic.queues.OneToOneRingBuffer.TYPE_OFFSET;
+import static uk.co.real_logic.queues.OneToOneRingBuffer.align;
+import static uk.co.real_logic.queues.UnsafeAccess.UNSAFE;
+
+/**
+ * Record handling shared by the one producer to one consumer ring buffers. Subclasses decide where the head and
+ * tail counters live by giving an object and offset for each, which are then accessed via {@link UnsafeAccess}, so
+ * that a counter can be a field of an object on the heap or an address in mapped memory with a null object.
+ */
+abstract class AbstractOneToOneRingBuffer
+{
+    final int capacity;
+    final int mask;
+    final int maxMsgLength;
+    final ByteBuffer buffer;
+    final ByteBuffer writeBuffer;
+
+    private final Object tailObject;
+    private final long tailOffset;
+    private final Object headObject;
+    private final long headOffset;
+
+    private final PaddedLong tailCache = new PaddedLong();
+    private final PaddedLong headCache = new PaddedLong();
+
+    AbstractOneToOneRingBuffer(
+        final ByteBuffer buffer,
+        final int capacity,
+        final Object tailObject,
+        final long tailOffset,
+        final Object headObject,
+        final long headOffset)
+    {
+        this.capacity = capacity;
+        mask = capacity - 1;
+        maxMsgLength = capacity / 8;
+        this.buffer = buffer;
+        writeBuffer = buffer.duplicate();
+        this.tailObject = tailObject;
+        this.tailOffset = tailOffset;
+        this.headObject = headObject;
+        this.headOffset = headOffset;
+    }
+
+    public int capacity()
+    {
+        return capacity;
+    }
+
+    public int maxMsgLength()
+    {
+        return maxMsgLength;
+    }
+
+    public ByteBuffer buffer()
+    {
+        return buffer;
+    }
+
+    /**
+     * Write a message into the ring buffer.
+     *
+     * @param msgTypeId type of the message which must be greater than 0.
+     * @param src       array containing the message.
+     * @param offset    in src at which the message begins.
+     * @param length    of the message in bytes.
+     * @return true if written or false if there is insufficient space.
+     * @throws IllegalArgumentException if msgTypeId is not valid or length exceeds {@link #maxMsgLength()}.
+     */
+    public boolean write(final int msgTypeId, final byte[] src, final int offset, final int length)
+    {
+        final int index = tryClaim(msgTypeId, length);
+        if (index < 0)
+        {
+            return false;
+        }
+
+        putBytes(index, src, offset, length);
+        commit(index);
+
+        return true;
+    }
+
+    /**
+     * Claim space for a message so it can be written in place, for example from several sources, avoiding a copy
+     * into an intermediate array. The message is written with {@link #buffer()} or
+     * {@link #putBytes(int, byte[], int, int)} and becomes visible to the consumer on {@link #commit(int)}. Only one
+     * claim may be outstanding.
+     *
+     * @param msgTypeId type of the message which must be greater than 0.
+     * @param length    of the message in bytes.
+     * @return the index in {@link #buffer()} at which to write the message or -1 if there is insufficient space.
+     * @throws IllegalArgumentException if msgTypeId is not valid or length exceeds {@link #maxMsgLength()}.
+     */
+    public int tryClaim(final int msgTypeId, final int length)
+    {
+        if (msgTypeId < 1)
+        {
+            throw new IllegalArgumentException("Message type id must be greater than 0: " + msgTypeId);
+        }
+
+        if (length > maxMsgLength)
+        {
+            throw new IllegalArgumentException("Message exceeds maxMsgLength of " + maxMsgLength + ": " + length);
+        }
+
+        final int recordLength = length + HEADER_LENGTH;
+        final int alignedRecordLength = align(recordLength, ALIGNMENT);
+        final long currentTail = UNSAFE.getLong(tailObject, tailOffset);
+        final int tailIndex = (int)currentTail & mask;
+        final int toBufferEndLength = capacity - tailIndex;
+
+        int padding = 0;
+        if (alignedRecordLength > toBufferEndLength)
+        {
+            padding = toBufferEndLength;
+        }
+
+        final long requiredCapacity = alignedRecordLength + padding;
+        if (headCache.value + capacity - currentTail < requiredCapacity)
+        {
+            headCache.value = UNSAFE.getLongVolatile(headObject, headOffset);
+            if (headCache.value + capacity - currentTail < requiredCapacity)
+            {
+                return -1;
+            }
+        }
+
+        int recordIndex = tailIndex;
+        if (0 != padding)
+        {
+            buffer.putInt(tailIndex + LENGTH_OFFSET, padding);
+            buffer.putInt(tailIndex + TYPE_OFFSET, PADDING_MSG_TYPE_ID);
+            recordIndex = 0;
+        }
+
+        buffer.putInt(recordIndex + LENGTH_OFFSET, recordLength);
+        buffer.putInt(recordIndex + TYPE_OFFSET, msgTypeId);
+
+        return recordIndex + HEADER_LENGTH;
+    }
+
+    /**
+     * Copy bytes into a claimed message.
+     *
+     * @param index  in {@link #buffer()} at which to copy.
+     * @param src    array containing the bytes.
+     * @param offset in src at which the bytes begin.
+     * @param length of the bytes to copy.
+     */
+    public void putBytes(final int index, final byte[] src, final int offset, final int length)
+    {
+        writeBuffer.position(index);
+        writeBuffer.put(src, offset, length);
+    }
+
+    /**
+     * Make a claimed message visible to the consumer by publishing the tail past it, and past any padding that was
+     * needed before it.
+     *
+     * @param index returned by {@link #tryClaim(int, int)}.
+     */
+    public void commit(final int index)
+    {
+        final long currentTail = UNSAFE.getLong(tailObject, tailOffset);
+        final int recordIndex = index - HEADER_LENGTH;
+        final int tailIndex = (int)currentTail & mask;
+        final int padding = recordIndex == tailIndex ? 0 : capacity - tailIndex;
+        final int alignedRecordLength = align(buffer.getInt(recordIndex + LENGTH_OFFSET), ALIGNMENT);
+
+        UNSAFE.putOrderedLong(tailObject, tailOffset, currentTail + padding + alignedRecordLength);
+    }
+
+    /**
+     * Read messages that are available up to the cached tail, publishing the head once for the batch.
+     *
+     * @param handler    to be called for each message.
+     * @param limitCount on the number of messages to be read.
+     * @return the number of messages read.
+     */
+    public int read(final MessageHandler handler, final int limitCount)
+    {
+        final long currentHead = UNSAFE.getLong(headObject, headOffset);
+        if (currentHead >= tailCache.value)
+        {
+            tailCache.value = UNSAFE.getLongVolatile(tailObject, tailOffset);
+            if (currentHead >= tailCache.value)
+            {
+                return 0;
+            }
+        }
+
+        final int available = (int)(tailCache.value - currentHead);
+        final int headIndex = (int)currentHead & mask;
+        int bytesRead = 0;
+        int messagesRead = 0;
+
+        try
+        {
+            while (bytesRead < available && messagesRead < limitCount)
+            {
+                final int recordIndex = (headIndex + bytesRead) & mask;
+                final int recordLength = buffer.getInt(recordIndex + LENGTH_OFFSET);
+                final int msgTypeId = buffer.getInt(recordIndex + TYPE_OFFSET);
+                bytesRead += align(recordLength, ALIGNMENT);
+
+                if (PADDING_MSG_TYPE_ID == msgTypeId)
+                {
+                    continue;
+                }
+
+                messagesRead++;
+                handler.onMessage(msgTypeId, buffer, recordIndex + HEADER_LENGTH, recordLength - HEADER_LENGTH);
+            }
+        }
+        finally
+        {
+            if (bytesRead > 0)
+            {
+                UNSAFE.putOrderedLong(headObject, headOffset, currentHead + bytesRead);
+            }
+        }
+
+        return messagesRead;
+    }
+
+    public int size()
+    {
+        return (int)(UNSAFE.getLongVolatile(tailObject, tailOffset) - UNSAFE.getLongVolatile(headObject, headOffset));
+    }
+}
@@ -0,0 +1,37 @@
+/*
+ * Copyright 2016 Real Logic Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.co.real_logic.queues;
+
+/**
+ * Unit of work to be repeatedly invoked on a duty cycle thread by an {@link AgentRunner}.
+ */
+public interface Agent
+{
+    /**
+     * Perform a bounded amount of work and return without blocking.
+     *
+     * @return the amount of work done, 0 if there was none, so the runner can decide whether to idle.
+     * @throws Exception if an error occurs which will stop the runner.
+     */
+    int doWork() throws Exception;
+
+    /**
+     * Name of the role played by the agent, used for naming its thread and reporting.
+     *
+     * @return the role name.
+     */
+    String roleName();
+}
@@ -0,0 +1,106 @@
+/*
+ * Copyright 2016 Real Logic Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.co.real_logic.queues;
+
+/**
+ * Runs an {@link Agent} on a duty cycle, applying an {@link IdleStrategy} whenever a cycle finds no work.
+ * <p>
+ * Counts of work done, duty cycles and idle cycles are kept in padded counters so a monitoring thread can read them.
+ */
+public final class AgentRunner implements Runnable
+{
+    private final Agent agent;
+    private final IdleStrategy idleStrategy;
+    private volatile boolean running = true;
+
+    private final PaddedAtomicLong totalWork = new PaddedAtomicLong(0);
+    private final PaddedAtomicLong dutyCycles = new PaddedAtomicLong(0);
+    private final PaddedAtomicLong idleCycles = new PaddedAtomicLong(0);
+
+    public AgentRunner(final Agent agent, final IdleStrategy idleStrategy)
+    {
+        this.agent = agent;
+        this.idleStrategy = idleStrategy;
+    }
+
+    /**
+     * Start the runner on a new thread named after the agent role.
+     *
+     * @return the thread which has been started.
+     */
+    public Thread start()
+    {
+        final Thread thread = new Thread(this, agent.roleName());
+        thread.start();
+
+        return thread;
+    }
+
+    public void run()
+    {
+        try
+        {
+            while (running)
+            {
+                final int workCount = agent.doWork();
+                dutyCycles.lazySet(dutyCycles.get() + 1);
+
+                if (workCount > 0)
+                {
+                    totalWork.lazySet(totalWork.get() + workCount);
+                }
+                else
+                {
+                    idleCycles.lazySet(idleCycles.get() + 1);
+                }
+
+                idleStrategy.idle(workCount);
+            }
+        }
+        catch (final Exception ex)
+        {
+            throw new RuntimeException(ex);
+        }
+    }
+
+    /**
+     * Signal the runner to stop after the current duty cycle.
+     */
+    public void close()
+    {
+        running = false;
+    }
+
+    public Agent agent()
+    {
+        return agent;
+    }
+
+    public long totalWork()
+    {
+        return totalWork.get();
+    }
+
+    public long dutyCycles()
+    {
+        return dutyCycles.get();
+    }
+
+    public long idleCycles()
+    {
+        return idleCycles.get();
+    }
+}
@@ -0,0 +1,79 @@
+/*
+ * Copyright 2016 Real Logic Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.co.real_logic.queues;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.List;
+
+/**
+ * Allocation and garbage collection measures shared by the perf tests, taken from the platform MXBeans.
+ */
+public final class AllocationMeter
+{
+    private static final com.sun.management.ThreadMXBean THREAD_MX_BEAN =
+        (com.sun.management.ThreadMXBean)ManagementFactory.getThreadMXBean();
+
+    private static final List<GarbageCollectorMXBean> GC_MX_BEANS = ManagementFactory.getGarbageCollectorMXBeans();
+
+    private AllocationMeter()
+    {
+    }
+
+    /**
+     * Bytes allocated by the current thread since it started.
+     *
+     * @return bytes allocated by the current thread.
+     */
+    public static long allocatedBytes()
+    {
+        return THREAD_MX_BEAN.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    /**
+     * Number of garbage collections since the JVM started, summed over all collectors.
+     *
+     * @return number of garbage collections.
+     */
+    public static long gcCount()
+    {
+        long count = 0;
+        for (final GarbageCollectorMXBean gcMxBean : GC_MX_BEANS)
+        {
+            count += Math.max(0, gcMxBean.getCollectionCount());
+        }
+
+        return count;
+    }
+
+    /**
+     * Accumulated elapsed time of garbage collections since the JVM started, summed over all collectors. This is the
+     * time reported by each collector, which for concurrent collectors includes time not spent in pauses, so it is
+     * not a measure of pause times.
+     *
+     * @return accumulated collection time in milliseconds.
+     */
+    public static long gcCollectionTimeMs()
+    {
+        long timeMs = 0;
+        for (final GarbageCollectorMXBean gcMxBean : GC_MX_BEANS)
+        {
+            timeMs += Math.max(0, gcMxBean.getCollectionTime());
+        }
+
+        return timeMs;
+    }
+}
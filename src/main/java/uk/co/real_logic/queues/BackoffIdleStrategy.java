@@ -0,0 +1,116 @@
+/*
+ * Copyright 2016 Real Logic Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.co.real_logic.queues;
+
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Progressive backoff which spins, then yields, then parks for exponentially increasing periods up to a maximum.
+ * Any work done resets the backoff to spinning.
+ */
+public final class BackoffIdleStrategy implements IdleStrategy
+{
+    private static final int NOT_IDLE = 0;
+    private static final int SPINNING = 1;
+    private static final int YIELDING = 2;
+    private static final int PARKING = 3;
+
+    private final long maxSpins;
+    private final long maxYields;
+    private final long minParkPeriodNs;
+    private final long maxParkPeriodNs;
+
+    private int state = NOT_IDLE;
+    private long spins;
+    private long yields;
+    private long parkPeriodNs;
+
+    /**
+     * Construct with the limits for each phase of backoff.
+     *
+     * @param maxSpins        to perform before moving to yielding.
+     * @param maxYields       to perform before moving to parking.
+     * @param minParkPeriodNs to use when starting to park.
+     * @param maxParkPeriodNs to which the park period doubles.
+     */
+    public BackoffIdleStrategy(
+        final long maxSpins, final long maxYields, final long minParkPeriodNs, final long maxParkPeriodNs)
+    {
+        this.maxSpins = maxSpins;
+        this.maxYields = maxYields;
+        this.minParkPeriodNs = minParkPeriodNs;
+        this.maxParkPeriodNs = maxParkPeriodNs;
+    }
+
+    public void idle(final int workCount)
+    {
+        if (workCount > 0)
+        {
+            reset();
+        }
+        else
+        {
+            idle();
+        }
+    }
+
+    public void idle()
+    {
+        switch (state)
+        {
+            case NOT_IDLE:
+                state = SPINNING;
+                spins++;
+                break;
+
+            case SPINNING:
+                if (++spins > maxSpins)
+                {
+                    state = YIELDING;
+                    yields = 0;
+                }
+                break;
+
+            case YIELDING:
+                if (++yields > maxYields)
+                {
+                    state = PARKING;
+                    parkPeriodNs = minParkPeriodNs;
+                }
+                else
+                {
+                    Thread.yield();
+                }
+                break;
+
+            case PARKING:
+                LockSupport.parkNanos(parkPeriodNs);
+                parkPeriodNs = Math.min(parkPeriodNs << 1, maxParkPeriodNs);
+                break;
+
+            default:
+                throw new IllegalStateException("Unknown state: " + state);
+        }
+    }
+
+    public void reset()
+    {
+        spins = 0;
+        yields = 0;
+        parkPeriodNs = minParkPeriodNs;
+        state = NOT_IDLE;
+    }
+}
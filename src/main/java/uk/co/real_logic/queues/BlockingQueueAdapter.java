@@ -0,0 +1,369 @@
+/*
+ * Copyright 2016 Real Logic Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.co.real_logic.queues;
+
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static uk.co.real_logic.queues.UnsafeAccess.UNSAFE;
+
+/**
+ * {@link BlockingQueue} over one of the lock-free queues so that latency tolerant threads can wait rather than spin.
+ * <p>
+ * A thread which has to wait first announces itself by incrementing a waiter count, then takes the lock and checks
+ * the queue again before waiting on a condition. The other side only takes the lock to signal when it sees an
+ * announced waiter after a full fence, so when nobody is waiting offer and poll stay lock-free.
+ *
+ * @param <E> type of the elements stored in the queue.
+ */
+public final class BlockingQueueAdapter<E> implements BlockingQueue<E>
+{
+    private final Queue<E> queue;
+    private final int capacity;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notEmpty = lock.newCondition();
+    private final Condition notFull = lock.newCondition();
+    private final AtomicInteger waitingConsumers = new AtomicInteger();
+    private final AtomicInteger waitingProducers = new AtomicInteger();
+
+    /**
+     * Wrap a lock-free queue.
+     *
+     * @param queue    to be wrapped which must support the number of producer and consumer threads used.
+     * @param capacity of the wrapped queue for reporting the remaining capacity.
+     */
+    public BlockingQueueAdapter(final Queue<E> queue, final int capacity)
+    {
+        this.queue = queue;
+        this.capacity = capacity;
+    }
+
+    public boolean add(final E e)
+    {
+        if (offer(e))
+        {
+            return true;
+        }
+
+        throw new IllegalStateException("Queue is full");
+    }
+
+    public boolean offer(final E e)
+    {
+        if (queue.offer(e))
+        {
+            signalIfWaiting(waitingConsumers, notEmpty);
+            return true;
+        }
+
+        return false;
+    }
+
+    public void put(final E e) throws InterruptedException
+    {
+        if (offer(e))
+        {
+            return;
+        }
+
+        waitingProducers.incrementAndGet();
+        try
+        {
+            lock.lockInterruptibly();
+            try
+            {
+                while (!queue.offer(e))
+                {
+                    notFull.await();
+                }
+            }
+            finally
+            {
+                lock.unlock();
+            }
+        }
+        finally
+        {
+            waitingProducers.decrementAndGet();
+        }
+
+        signalIfWaiting(waitingConsumers, notEmpty);
+    }
+
+    public boolean offer(final E e, final long timeout, final TimeUnit unit) throws InterruptedException
+    {
+        if (offer(e))
+        {
+            return true;
+        }
+
+        long nanos = unit.toNanos(timeout);
+        waitingProducers.incrementAndGet();
+        try
+        {
+            lock.lockInterruptibly();
+            try
+            {
+                while (!queue.offer(e))
+                {
+                    if (nanos <= 0)
+                    {
+                        return false;
+                    }
+
+                    nanos = notFull.awaitNanos(nanos);
+                }
+            }
+            finally
+            {
+                lock.unlock();
+            }
+        }
+        finally
+        {
+            waitingProducers.decrementAndGet();
+        }
+
+        signalIfWaiting(waitingConsumers, notEmpty);
+
+        return true;
+    }
+
+    public E poll()
+    {
+        final E e = queue.poll();
+        if (null != e)
+        {
+            signalIfWaiting(waitingProducers, notFull);
+        }
+
+        return e;
+    }
+
+    public E take() throws InterruptedException
+    {
+        E e = poll();
+        if (null != e)
+        {
+            return e;
+        }
+
+        waitingConsumers.incrementAndGet();
+        try
+        {
+            lock.lockInterruptibly();
+            try
+            {
+                while (null == (e = queue.poll()))
+                {
+                    notEmpty.await();
+                }
+            }
+            finally
+            {
+                lock.unlock();
+            }
+        }
+        finally
+        {
+            waitingConsumers.decrementAndGet();
+        }
+
+        signalIfWaiting(waitingProducers, notFull);
+
+        return e;
+    }
+
+    public E poll(final long timeout, final TimeUnit unit) throws InterruptedException
+    {
+        E e = poll();
+        if (null != e)
+        {
+            return e;
+        }
+
+        long nanos = unit.toNanos(timeout);
+        waitingConsumers.incrementAndGet();
+        try
+        {
+            lock.lockInterruptibly();
+            try
+            {
+                while (null == (e = queue.poll()))
+                {
+                    if (nanos <= 0)
+                    {
+                        return null;
+                    }
+
+                    nanos = notEmpty.awaitNanos(nanos);
+                }
+            }
+            finally
+            {
+                lock.unlock();
+            }
+        }
+        finally
+        {
+            waitingConsumers.decrementAndGet();
+        }
+
+        signalIfWaiting(waitingProducers, notFull);
+
+        return e;
+    }
+
+    public int remainingCapacity()
+    {
+        return capacity - queue.size();
+    }
+
+    public int drainTo(final Collection<? super E> c)
+    {
+        return drainTo(c, Integer.MAX_VALUE);
+    }
+
+    public int drainTo(final Collection<? super E> c, final int maxElements)
+    {
+        if (this == c)
+        {
+            throw new IllegalArgumentException("Cannot drain to self");
+        }
+
+        int count = 0;
+        E e;
+        while (count < maxElements && null != (e = queue.poll()))
+        {
+            c.add(e);
+            count++;
+        }
+
+        if (count > 0)
+        {
+            signalIfWaiting(waitingProducers, notFull);
+        }
+
+        return count;
+    }
+
+    public E remove()
+    {
+        final E e = queue.remove();
+        signalIfWaiting(waitingProducers, notFull);
+
+        return e;
+    }
+
+    public E element()
+    {
+        return queue.element();
+    }
+
+    public E peek()
+    {
+        return queue.peek();
+    }
+
+    public int size()
+    {
+        return queue.size();
+    }
+
+    public boolean isEmpty()
+    {
+        return queue.isEmpty();
+    }
+
+    public boolean contains(final Object o)
+    {
+        return queue.contains(o);
+    }
+
+    public Iterator<E> iterator()
+    {
+        return queue.iterator();
+    }
+
+    public Object[] toArray()
+    {
+        return queue.toArray();
+    }
+
+    public <T> T[] toArray(final T[] a)
+    {
+        return queue.toArray(a);
+    }
+
+    public boolean remove(final Object o)
+    {
+        return queue.remove(o);
+    }
+
+    public boolean containsAll(final Collection<?> c)
+    {
+        return queue.containsAll(c);
+    }
+
+    public boolean addAll(final Collection<? extends E> c)
+    {
+        for (final E e : c)
+        {
+            add(e);
+        }
+
+        return true;
+    }
+
+    public boolean removeAll(final Collection<?> c)
+    {
+        throw new UnsupportedOperationException();
+    }
+
+    public boolean retainAll(final Collection<?> c)
+    {
+        throw new UnsupportedOperationException();
+    }
+
+    public void clear()
+    {
+        queue.clear();
+        signalIfWaiting(waitingProducers, notFull);
+    }
+
+    private void signalIfWaiting(final AtomicInteger waiters, final Condition condition)
+    {
+        UNSAFE.fullFence();
+        if (waiters.get() > 0)
+        {
+            lock.lock();
+            try
+            {
+                condition.signalAll();
+            }
+            finally
+            {
+                lock.unlock();
+            }
+        }
+    }
+}
@@ -0,0 +1,126 @@
+/*
+ * Copyright 2016 Real Logic Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.co.real_logic.queues;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Measures how read throughput of a {@link BroadcastTransmitter} scales with the number of receivers, each on its
+ * own thread, and how often they are lapped.
+ * <p>
+ * Usage: java uk.co.real_logic.queues.BroadcastPerfTest [max readers]
+ */
+public class BroadcastPerfTest
+{
+    public static final int BUFFER_CAPACITY = 64 * 1024;
+    public static final int REPETITIONS = 20 * 1000 * 1000;
+    public static final int MSG_TYPE_ID = 1;
+
+    private static volatile boolean running;
+
+    public static void main(final String[] args) throws Exception
+    {
+        final int maxReaders = args.length > 0 ?
+            Integer.parseInt(args[0]) : Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+
+        for (int readerCount = 1; readerCount <= maxReaders; readerCount++)
+        {
+            for (int i = 0; i < 3; i++)
+            {
+                System.gc();
+                performanceRun(i, readerCount);
+            }
+        }
+    }
+
+    private static void performanceRun(final int runNumber, final int readerCount) throws Exception
+    {
+        final BroadcastTransmitter transmitter = new BroadcastTransmitter(BUFFER_CAPACITY);
+        final Reader[] readers = new Reader[readerCount];
+        final Thread[] threads = new Thread[readerCount];
+        running = true;
+
+        for (int i = 0; i < readerCount; i++)
+        {
+            readers[i] = new Reader(transmitter.newReceiver());
+            threads[i] = new Thread(readers[i]);
+            threads[i].start();
+        }
+
+        final byte[] message = new byte[8];
+        final ByteBuffer messageBuffer = ByteBuffer.wrap(message).order(ByteOrder.nativeOrder());
+        final long start = System.nanoTime();
+        for (long i = 0; i < REPETITIONS; i++)
+        {
+            messageBuffer.putLong(0, i);
+            transmitter.transmit(MSG_TYPE_ID, message, 0, message.length);
+        }
+
+        final long duration = System.nanoTime() - start;
+        running = false;
+
+        long totalReceived = 0;
+        long totalLapped = 0;
+        for (int i = 0; i < readerCount; i++)
+        {
+            threads[i].join();
+            totalReceived += readers[i].received;
+            totalLapped += readers[i].receiver.lappedCount();
+        }
+
+        final long transmitOps = (REPETITIONS * 1000L * 1000L * 1000L) / duration;
+        final long readOps = (totalReceived * 1000L * 1000L * 1000L) / duration;
+        System.out.format("%d - readers=%d transmit ops/sec=%,d total read ops/sec=%,d per reader=%,d lapped=%,d\n",
+                          Integer.valueOf(runNumber), Integer.valueOf(readerCount),
+                          Long.valueOf(transmitOps), Long.valueOf(readOps), Long.valueOf(readOps / readerCount),
+                          Long.valueOf(totalLapped));
+    }
+
+    public static class Reader implements Runnable, MessageHandler
+    {
+        private final BroadcastReceiver receiver;
+        private long received;
+        private long lastValue;
+
+        public Reader(final BroadcastReceiver receiver)
+        {
+            this.receiver = receiver;
+        }
+
+        public void run()
+        {
+            while (running)
+            {
+                if (0 == receiver.receive(this))
+                {
+                    Thread.yield();
+                }
+            }
+
+            while (0 != receiver.receive(this))
+            {
+                // catch up on messages sent before stopping
+            }
+        }
+
+        public void onMessage(final int msgTypeId, final ByteBuffer buffer, final int index, final int length)
+        {
+            lastValue = buffer.getLong(index);
+            received++;
+        }
+    }
+}
@@ -0,0 +1,141 @@
+/*
+ * Copyright 2016 Real Logic Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.co.real_logic.queues;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import static uk.co.real_logic.queues.OneToOneRingBuffer.ALIGNMENT;
+import static uk.co.real_logic.queues.OneToOneRingBuffer.HEADER_LENGTH;
+import static uk.co.real_logic.queues.OneToOneRingBuffer.LENGTH_OFFSET;
+import static uk.co.real_logic.queues.OneToOneRingBuffer.PADDING_MSG_TYPE_ID;
+import static uk.co.real_logic.queues.OneToOneRingBuffer.TYPE_OFFSET;
+import static uk.co.real_logic.queues.OneToOneRingBuffer.align;
+import static uk.co.real_logic.queues.UnsafeAccess.UNSAFE;
+
+/**
+ * Reader of messages from a {@link BroadcastTransmitter} which keeps its own cursor and so never slows the
+ * transmitter or other readers.
+ * <p>
+ * Each message is copied into a scratch buffer and only delivered if the transmitter has not lapped the cursor while
+ * it was being copied. When lapped the receiver skips forward to the latest message and counts the lap.
+ * Instances are not thread safe and must be used by one thread.
+ */
+public final class BroadcastReceiver
+{
+    private final BroadcastTransmitter transmitter;
+    private final ByteBuffer buffer;
+    private final ByteBuffer scratchBuffer;
+    private final int capacity;
+    private final int mask;
+
+    private long cursor;
+    private long lappedCount;
+
+    BroadcastReceiver(final BroadcastTransmitter transmitter, final ByteBuffer buffer)
+    {
+        this.transmitter = transmitter;
+        this.buffer = buffer;
+        capacity = transmitter.capacity();
+        mask = capacity - 1;
+        scratchBuffer = ByteBuffer.allocateDirect(transmitter.maxMsgLength()).order(ByteOrder.nativeOrder());
+        cursor = transmitter.tail.get();
+    }
+
+    /**
+     * The number of times the transmitter has overtaken this receiver causing messages to be lost.
+     *
+     * @return the number of times this receiver has been lapped.
+     */
+    public long lappedCount()
+    {
+        return lappedCount;
+    }
+
+    /**
+     * Receive the next message if available. The buffer passed to the handler is a scratch copy which is only
+     * valid for the duration of the callback.
+     *
+     * @param handler to be called with the message.
+     * @return 1 if a message was received, otherwise 0.
+     */
+    public int receive(final MessageHandler handler)
+    {
+        while (true)
+        {
+            final long tail = transmitter.tail.get();
+            long recordCursor = cursor;
+            if (tail <= recordCursor)
+            {
+                return 0;
+            }
+
+            if (!validate(recordCursor))
+            {
+                recordCursor = lapped();
+            }
+
+            int recordIndex = (int)recordCursor & mask;
+            int recordLength = buffer.getInt(recordIndex + LENGTH_OFFSET);
+            int msgTypeId = buffer.getInt(recordIndex + TYPE_OFFSET);
+            long nextCursor = recordCursor + align(recordLength, ALIGNMENT);
+
+            if (PADDING_MSG_TYPE_ID == msgTypeId)
+            {
+                recordIndex = 0;
+                recordLength = buffer.getInt(LENGTH_OFFSET);
+                msgTypeId = buffer.getInt(TYPE_OFFSET);
+                nextCursor += align(recordLength, ALIGNMENT);
+            }
+
+            final int length = recordLength - HEADER_LENGTH;
+            if (length < 0 || length > scratchBuffer.capacity() || recordIndex + recordLength > capacity)
+            {
+                cursor = lapped();
+                continue;
+            }
+
+            buffer.limit(recordIndex + HEADER_LENGTH + length).position(recordIndex + HEADER_LENGTH);
+            scratchBuffer.clear();
+            scratchBuffer.put(buffer);
+            buffer.clear();
+
+            UNSAFE.loadFence();
+            if (!validate(recordCursor))
+            {
+                cursor = lapped();
+                continue;
+            }
+
+            cursor = nextCursor;
+            handler.onMessage(msgTypeId, scratchBuffer, 0, length);
+
+            return 1;
+        }
+    }
+
+    private long lapped()
+    {
+        lappedCount++;
+
+        return transmitter.latest.get();
+    }
+
+    private boolean validate(final long recordCursor)
+    {
+        return (recordCursor + capacity) > transmitter.tailIntent.get();
+    }
+}
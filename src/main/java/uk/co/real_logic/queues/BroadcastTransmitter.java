@@ -0,0 +1,136 @@
+/*
+ * Copyright 2016 Real Logic Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.co.real_logic.queues;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import static uk.co.real_logic.queues.OneToOneRingBuffer.ALIGNMENT;
+import static uk.co.real_logic.queues.OneToOneRingBuffer.HEADER_LENGTH;
+import static uk.co.real_logic.queues.OneToOneRingBuffer.LENGTH_OFFSET;
+import static uk.co.real_logic.queues.OneToOneRingBuffer.PADDING_MSG_TYPE_ID;
+import static uk.co.real_logic.queues.OneToOneRingBuffer.TYPE_OFFSET;
+import static uk.co.real_logic.queues.OneToOneRingBuffer.align;
+import static uk.co.real_logic.queues.UnsafeAccess.UNSAFE;
+
+/**
+ * One writer to many readers broadcast of variable length messages over a ring in a {@link ByteBuffer}.
+ * <p>
+ * Records use the same format as {@link OneToOneRingBuffer}. The transmitter never waits for readers. Before
+ * writing it announces the tail it intends to reach so that each {@link BroadcastReceiver} can detect, after
+ * copying a message out, whether the transmitter has lapped it and overwritten the message in the meantime.
+ */
+public final class BroadcastTransmitter
+{
+    private final int capacity;
+    private final int mask;
+    private final int maxMsgLength;
+    private final ByteBuffer buffer;
+    private final ByteBuffer writeBuffer;
+
+    final PaddedAtomicLong tailIntent = new PaddedAtomicLong(0);
+    final PaddedAtomicLong tail = new PaddedAtomicLong(0);
+    final PaddedAtomicLong latest = new PaddedAtomicLong(0);
+
+    /**
+     * Construct a transmitter over a newly allocated direct {@link ByteBuffer}.
+     *
+     * @param capacity in bytes which must be a power of two.
+     */
+    public BroadcastTransmitter(final int capacity)
+    {
+        if (Integer.bitCount(capacity) != 1 || capacity < HEADER_LENGTH)
+        {
+            throw new IllegalArgumentException("Capacity must be a positive power of two: " + capacity);
+        }
+
+        this.capacity = capacity;
+        mask = capacity - 1;
+        maxMsgLength = capacity / 8;
+        buffer = ByteBuffer.allocateDirect(capacity).order(ByteOrder.nativeOrder());
+        writeBuffer = buffer.duplicate();
+    }
+
+    public int capacity()
+    {
+        return capacity;
+    }
+
+    public int maxMsgLength()
+    {
+        return maxMsgLength;
+    }
+
+    /**
+     * Create a new receiver which starts at the current tail, so it only receives messages transmitted after it is
+     * created.
+     *
+     * @return a new receiver to be used by a single reading thread.
+     */
+    public BroadcastReceiver newReceiver()
+    {
+        return new BroadcastReceiver(this, buffer.duplicate().order(ByteOrder.nativeOrder()));
+    }
+
+    /**
+     * Transmit a message to any receivers, overwriting the oldest messages in the ring.
+     *
+     * @param msgTypeId type of the message which must be greater than 0.
+     * @param src       array containing the message.
+     * @param offset    in src at which the message begins.
+     * @param length    of the message in bytes.
+     * @throws IllegalArgumentException if msgTypeId is not valid or length exceeds {@link #maxMsgLength()}.
+     */
+    public void transmit(final int msgTypeId, final byte[] src, final int offset, final int length)
+    {
+        if (msgTypeId < 1)
+        {
+            throw new IllegalArgumentException("Message type id must be greater than 0: " + msgTypeId);
+        }
+
+        if (length > maxMsgLength)
+        {
+            throw new IllegalArgumentException("Message exceeds maxMsgLength of " + maxMsgLength + ": " + length);
+        }
+
+        final int recordLength = length + HEADER_LENGTH;
+        final int alignedRecordLength = align(recordLength, ALIGNMENT);
+        final long currentTail = tail.get();
+        final int tailIndex = (int)currentTail & mask;
+        final int toBufferEndLength = capacity - tailIndex;
+        final int padding = alignedRecordLength > toBufferEndLength ? toBufferEndLength : 0;
+        final long newTail = currentTail + padding + alignedRecordLength;
+
+        tailIntent.lazySet(newTail);
+        UNSAFE.storeFence();
+
+        int recordIndex = tailIndex;
+        if (0 != padding)
+        {
+            buffer.putInt(tailIndex + LENGTH_OFFSET, padding);
+            buffer.putInt(tailIndex + TYPE_OFFSET, PADDING_MSG_TYPE_ID);
+            recordIndex = 0;
+        }
+
+        buffer.putInt(recordIndex + LENGTH_OFFSET, recordLength);
+        buffer.putInt(recordIndex + TYPE_OFFSET, msgTypeId);
+        writeBuffer.position(recordIndex + HEADER_LENGTH);
+        writeBuffer.put(src, offset, length);
+
+        latest.lazySet(currentTail);
+        tail.lazySet(newTail);
+    }
+}
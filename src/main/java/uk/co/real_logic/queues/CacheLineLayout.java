@@ -0,0 +1,314 @@
+/*
+ * Copyright 2016 Real Logic Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.co.real_logic.queues;
+
+import java.io.PrintStream;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+import static uk.co.real_logic.queues.UnsafeAccess.UNSAFE;
+
+/**
+ * Self-check of how the JVM has laid out the hot fields of the padded classes and queues, using Unsafe field
+ * offsets. Fields named p followed by digits are taken to be padding, final fields are read only so cannot suffer
+ * from false sharing, and all other instance fields are hot. Final references to objects which themselves have hot
+ * fields, such as a {@link PaddedAtomicLong}, are followed so the value they hold is checked as well.
+ * <p>
+ * Hot fields are grouped by the thread which writes them. Fields in the same group may share a cache line, but a
+ * field must be at least a cache line away from every hot field of another group and have a cache line of padding
+ * to the bounds of its object. Groups are given as the names of fields of the class, where naming a reference
+ * field includes the hot fields of the object it refers to. By default each hot field of the class is its own group,
+ * as are the hot fields of each referenced object. For values held in separate objects the distance reported is the
+ * least it can be wherever the JVM places the objects.
+ * <p>
+ * The Java 8 versions of {@link OneToOneConcurrentArrayQueue4} and {@link ManyToOneConcurrentArrayQueue2} delegate to
+ * other queues and have no hot fields of their own, so run on Java 9 or later with the multi-release jar to check them.
+ * <p>
+ * Usage: java uk.co.real_logic.queues.CacheLineLayout [className[#field,field#field,field]...]
+ */
+public final class CacheLineLayout
+{
+    public static final int CACHE_LINE_LENGTH = 64;
+
+    private static final String[] DEFAULT_CLASS_NAMES =
+    {
+        "uk.co.real_logic.queues.PaddedAtomicLong",
+        "uk.co.real_logic.queues.OneToOneConcurrentArrayQueue3$PaddedLong",
+        "uk.co.real_logic.queues.OneToOneConcurrentArrayQueue3#tail,headCache#head,tailCache",
+        "uk.co.real_logic.queues.OneToOneConcurrentArrayQueue4#tail,headCache#head,tailCache",
+        "uk.co.real_logic.queues.ManyToOneConcurrentArrayQueue2"
+    };
+
+    private CacheLineLayout()
+    {
+    }
+
+    public static void main(final String[] args) throws Exception
+    {
+        final String[] classNames = args.length > 0 ? args : DEFAULT_CLASS_NAMES;
+
+        boolean allPadded = true;
+        for (final String spec : classNames)
+        {
+            final String[] parts = spec.split("#");
+            allPadded &= report(Class.forName(parts[0]), System.out, Arrays.copyOfRange(parts, 1, parts.length));
+        }
+
+        System.out.println(allPadded ? "All hot fields padded" : "Some hot fields are exposed to false sharing");
+    }
+
+    /**
+     * Print the layout of the hot fields of a class.
+     *
+     * @param cls    to be inspected.
+     * @param out    to which the report is printed.
+     * @param owners comma separated names of hot fields which are written by the same thread.
+     * @return true if every hot field has a cache line of padding to the bounds of its object and is at least a cache
+     * line away from the hot fields of other owners.
+     */
+    public static boolean report(final Class<?> cls, final PrintStream out, final String... owners)
+    {
+        final List<HotField> hotFields = hotFields(cls, owners);
+        out.println(cls.getName());
+        if (hotFields.isEmpty())
+        {
+            out.println("  no hot fields");
+            return true;
+        }
+
+        boolean allPadded = true;
+        for (final HotField field : hotFields)
+        {
+            HotField nearest = null;
+            long nearestDistance = Long.MAX_VALUE;
+            for (final HotField other : hotFields)
+            {
+                if (!other.owner.equals(field.owner))
+                {
+                    final long distance = field.distanceTo(other);
+                    if (distance < nearestDistance)
+                    {
+                        nearest = other;
+                        nearestDistance = distance;
+                    }
+                }
+            }
+
+            final boolean padded =
+                field.before >= CACHE_LINE_LENGTH &&
+                field.after >= CACHE_LINE_LENGTH &&
+                nearestDistance >= CACHE_LINE_LENGTH;
+            allPadded &= padded;
+
+            out.format("  %-24s %-12s padding before=%-5d after=%-5d", field.name,
+                       field.object.isEmpty() ? "offset=" + field.offset : "(referenced)",
+                       Long.valueOf(field.before), Long.valueOf(field.after));
+            if (null != nearest)
+            {
+                out.format(" nearest=%s distance%s%d", nearest.name,
+                           field.object.equals(nearest.object) ? "=" : ">=", Long.valueOf(nearestDistance));
+            }
+
+            out.println(padded ? "" : " EXPOSED");
+        }
+
+        return allPadded;
+    }
+
+    /**
+     * Instance fields of a class and its superclasses in order of offset within the object.
+     *
+     * @param cls to be inspected.
+     * @return the instance fields in order of offset.
+     */
+    public static List<FieldOffset> instanceFields(final Class<?> cls)
+    {
+        final List<FieldOffset> fields = new ArrayList<>();
+        for (Class<?> c = cls; null != c && Object.class != c; c = c.getSuperclass())
+        {
+            for (final Field field : c.getDeclaredFields())
+            {
+                if (!Modifier.isStatic(field.getModifiers()))
+                {
+                    fields.add(new FieldOffset(
+                        field.getName(), field.getType(), UNSAFE.objectFieldOffset(field), sizeOf(field),
+                        Modifier.isFinal(field.getModifiers())));
+                }
+            }
+        }
+
+        fields.sort(Comparator.comparingLong((final FieldOffset field) -> field.offset));
+
+        return fields;
+    }
+
+    private static List<HotField> hotFields(final Class<?> cls, final String... owners)
+    {
+        final List<HotField> hotFields = new ArrayList<>();
+        addHotFields(hotFields, "", instanceFields(cls), owners);
+
+        for (final FieldOffset field : instanceFields(cls))
+        {
+            if (field.isFinal && !field.type.isPrimitive() && !field.type.isArray())
+            {
+                addHotFields(hotFields, field.name, instanceFields(field.type), owners);
+            }
+        }
+
+        return hotFields;
+    }
+
+    private static void addHotFields(
+        final List<HotField> hotFields, final String object, final List<FieldOffset> fields, final String... owners)
+    {
+        if (fields.isEmpty())
+        {
+            return;
+        }
+
+        final long firstOffset = fields.get(0).offset;
+        final FieldOffset last = fields.get(fields.size() - 1);
+        final long endOffset = last.offset + last.size;
+
+        for (final FieldOffset field : fields)
+        {
+            if (field.isHot())
+            {
+                final String name = object.isEmpty() ? field.name : object + '.' + field.name;
+                hotFields.add(new HotField(
+                    name, owner(object.isEmpty() ? field.name : object, owners), object, field.offset, field.size,
+                    field.offset - firstOffset, endOffset - (field.offset + field.size)));
+            }
+        }
+    }
+
+    private static String owner(final String name, final String... owners)
+    {
+        for (final String owner : owners)
+        {
+            for (final String fieldName : owner.split(","))
+            {
+                if (fieldName.equals(name))
+                {
+                    return owner;
+                }
+            }
+        }
+
+        return name;
+    }
+
+    private static int sizeOf(final Field field)
+    {
+        final Class<?> type = field.getType();
+        if (long.class == type || double.class == type)
+        {
+            return 8;
+        }
+
+        if (int.class == type || float.class == type)
+        {
+            return 4;
+        }
+
+        if (short.class == type || char.class == type)
+        {
+            return 2;
+        }
+
+        if (byte.class == type || boolean.class == type)
+        {
+            return 1;
+        }
+
+        return UNSAFE.arrayIndexScale(Object[].class);
+    }
+
+    public static final class FieldOffset
+    {
+        public final String name;
+        public final Class<?> type;
+        public final long offset;
+        public final int size;
+        public final boolean isFinal;
+
+        FieldOffset(final String name, final Class<?> type, final long offset, final int size, final boolean isFinal)
+        {
+            this.name = name;
+            this.type = type;
+            this.offset = offset;
+            this.size = size;
+            this.isFinal = isFinal;
+        }
+
+        public boolean isPadding()
+        {
+            return name.matches("p\\d+");
+        }
+
+        public boolean isHot()
+        {
+            return !isFinal && !isPadding();
+        }
+    }
+
+    static final class HotField
+    {
+        final String name;
+        final String owner;
+        final String object;
+        final long offset;
+        final int size;
+        final long before;
+        final long after;
+
+        HotField(
+            final String name,
+            final String owner,
+            final String object,
+            final long offset,
+            final int size,
+            final long before,
+            final long after)
+        {
+            this.name = name;
+            this.owner = owner;
+            this.object = object;
+            this.offset = offset;
+            this.size = size;
+            this.before = before;
+            this.after = after;
+        }
+
+        /**
+         * Distance between the start of this field and another. For fields in separate objects this is the least
+         * distance possible as the objects cannot overlap.
+         */
+        long distanceTo(final HotField other)
+        {
+            if (object.equals(other.object))
+            {
+                return Math.abs(offset - other.offset);
+            }
+
+            return Math.min(size + after + other.before, other.size + other.after + before);
+        }
+    }
+}
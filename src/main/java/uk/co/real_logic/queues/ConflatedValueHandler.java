@@ -0,0 +1,33 @@
+/*
+ * Copyright 2016 Real Logic Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.co.real_logic.queues;
+
+/**
+ * Callback for the latest value of each key drained from a {@link OneToOneConflatingQueue}.
+ *
+ * @param <V> type of the values stored in the queue.
+ */
+@FunctionalInterface
+public interface ConflatedValueHandler<V>
+{
+    /**
+     * Called for each pending key in order of first arrival with the most recent value offered for it.
+     *
+     * @param key   for which the value was offered.
+     * @param value most recently offered for the key before it was drained.
+     */
+    void onValue(long key, V value);
+}
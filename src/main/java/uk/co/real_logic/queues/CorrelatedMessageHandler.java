@@ -0,0 +1,36 @@
+/*
+ * Copyright 2016 Real Logic Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.co.real_logic.queues;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Callback for requests and responses read from a {@link DuplexChannel} along with the correlation id of the call.
+ */
+@FunctionalInterface
+public interface CorrelatedMessageHandler
+{
+    /**
+     * Called for each message. The buffer is owned by the channel and must not be retained after the callback.
+     *
+     * @param correlationId of the call to which the message belongs.
+     * @param msgTypeId     type of the message.
+     * @param buffer        containing the message.
+     * @param index         in buffer at which the message begins.
+     * @param length        of the message in bytes.
+     */
+    void onMessage(long correlationId, int msgTypeId, ByteBuffer buffer, int index, int length);
+}
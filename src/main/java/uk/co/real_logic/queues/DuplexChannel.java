@@ -0,0 +1,396 @@
+/*
+ * Copyright 2016 Real Logic Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.co.real_logic.queues;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import static uk.co.real_logic.queues.OneToOneConcurrentArrayQueue3.findNextPositivePowerOfTwo;
+
+/**
+ * Request and response channel between a client thread and a server thread over a pair of {@link OneToOneRingBuffer}s,
+ * one outbound for requests and one inbound for responses.
+ * <p>
+ * Each message is prefixed with a long correlation id allocated by the client. Pending calls are kept by the client
+ * in an open addressed table from correlation id to the callback for the call. A response for a call made without
+ * a callback is completed by polling, being passed to the handler given to {@link #pollResponses}. The table is
+ * allocated up front and messages are written in place into claimed space in the rings, so there is no allocation
+ * or intermediate copy per call.
+ * <p>
+ * The state written by the client thread and by the server thread is kept in separate objects, each padded by the
+ * class hierarchy, so the two threads do not contend for a cache line when they poll.
+ */
+public final class DuplexChannel
+{
+    public static final long NULL_CORRELATION_ID = -1;
+    public static final int CORRELATION_ID_LENGTH = 8;
+
+    private static final CorrelatedMessageHandler POLLED = (correlationId, msgTypeId, buffer, index, length) -> {};
+
+    private final OneToOneRingBuffer outbound;
+    private final OneToOneRingBuffer inbound;
+    private final int maxPendingCalls;
+    private final int maxMsgLength;
+    private final ClientState client;
+    private final ServerState server = new ServerState();
+
+    /**
+     * The byte fills the gap left after the object header so the JVM cannot place a field of a subclass there,
+     * ahead of the padding.
+     */
+    abstract static class StatePadding1
+    {
+        byte p00;
+        long p01, p02, p03, p04, p05, p06, p07, p08;
+    }
+
+    abstract static class ClientStateFields extends StatePadding1
+    {
+        final int mask;
+        final long[] keys;
+        final CorrelatedMessageHandler[] values;
+        int size;
+        long nextCorrelationId;
+        CorrelatedMessageHandler polledResponseHandler;
+
+        ClientStateFields(final int capacity)
+        {
+            mask = capacity - 1;
+            keys = new long[capacity];
+            values = new CorrelatedMessageHandler[capacity];
+        }
+    }
+
+    /**
+     * State written by the client thread, being the open addressed map with linear probing from correlation id to
+     * callback for pending calls, and the handler for reading responses from the inbound ring.
+     */
+    static final class ClientState extends ClientStateFields implements MessageHandler
+    {
+        long p11, p12, p13, p14, p15, p16, p17, p18;
+
+        ClientState(final int capacity)
+        {
+            super(capacity);
+            Arrays.fill(keys, NULL_CORRELATION_ID);
+        }
+
+        public void onMessage(final int msgTypeId, final ByteBuffer buffer, final int index, final int length)
+        {
+            final long correlationId = buffer.getLong(index);
+            final CorrelatedMessageHandler callback = remove(correlationId);
+            if (null == callback)
+            {
+                return;
+            }
+
+            final CorrelatedMessageHandler handler = POLLED == callback ? polledResponseHandler : callback;
+            handler.onMessage(
+                correlationId, msgTypeId, buffer, index + CORRELATION_ID_LENGTH, length - CORRELATION_ID_LENGTH);
+        }
+
+        CorrelatedMessageHandler get(final long key)
+        {
+            int index = hash(key);
+            long existingKey;
+            while (NULL_CORRELATION_ID != (existingKey = keys[index]))
+            {
+                if (key == existingKey)
+                {
+                    return values[index];
+                }
+
+                index = (index + 1) & mask;
+            }
+
+            return null;
+        }
+
+        void put(final long key, final CorrelatedMessageHandler value)
+        {
+            int index = hash(key);
+            while (NULL_CORRELATION_ID != keys[index])
+            {
+                if (key == keys[index])
+                {
+                    values[index] = value;
+                    return;
+                }
+
+                index = (index + 1) & mask;
+            }
+
+            keys[index] = key;
+            values[index] = value;
+            size++;
+        }
+
+        CorrelatedMessageHandler remove(final long key)
+        {
+            int index = hash(key);
+            while (NULL_CORRELATION_ID != keys[index])
+            {
+                if (key == keys[index])
+                {
+                    final CorrelatedMessageHandler value = values[index];
+                    keys[index] = NULL_CORRELATION_ID;
+                    values[index] = null;
+                    size--;
+                    compactChain(index);
+
+                    return value;
+                }
+
+                index = (index + 1) & mask;
+            }
+
+            return null;
+        }
+
+        private void compactChain(final int removedIndex)
+        {
+            int deleteIndex = removedIndex;
+            int index = removedIndex;
+            while (true)
+            {
+                index = (index + 1) & mask;
+                if (NULL_CORRELATION_ID == keys[index])
+                {
+                    return;
+                }
+
+                final int hash = hash(keys[index]);
+                if ((index < hash && (hash <= deleteIndex || deleteIndex <= index)) ||
+                    (hash <= deleteIndex && deleteIndex <= index))
+                {
+                    keys[deleteIndex] = keys[index];
+                    values[deleteIndex] = values[index];
+                    keys[index] = NULL_CORRELATION_ID;
+                    values[index] = null;
+                    deleteIndex = index;
+                }
+            }
+        }
+
+        private int hash(final long key)
+        {
+            final long hash = key * 0x9E3779B97F4A7C15L;
+            return (int)(hash ^ (hash >>> 32)) & mask;
+        }
+    }
+
+    abstract static class ServerStateFields extends StatePadding1
+    {
+        CorrelatedMessageHandler requestHandler;
+    }
+
+    /**
+     * State written by the server thread, being the handler for reading requests from the outbound ring.
+     */
+    static final class ServerState extends ServerStateFields implements MessageHandler
+    {
+        long p11, p12, p13, p14, p15, p16, p17, p18;
+
+        public void onMessage(final int msgTypeId, final ByteBuffer buffer, final int index, final int length)
+        {
+            requestHandler.onMessage(
+                buffer.getLong(index), msgTypeId, buffer, index + CORRELATION_ID_LENGTH, length - CORRELATION_ID_LENGTH);
+        }
+    }
+
+    /**
+     * Construct a channel.
+     *
+     * @param capacity        in bytes of each ring buffer which must be a power of two.
+     * @param maxPendingCalls on the number of calls awaiting a response.
+     */
+    public DuplexChannel(final int capacity, final int maxPendingCalls)
+    {
+        outbound = new OneToOneRingBuffer(capacity);
+        inbound = new OneToOneRingBuffer(capacity);
+        this.maxPendingCalls = maxPendingCalls;
+        maxMsgLength = outbound.maxMsgLength() - CORRELATION_ID_LENGTH;
+        client = new ClientState(findNextPositivePowerOfTwo(maxPendingCalls) * 2);
+    }
+
+    public int maxMsgLength()
+    {
+        return maxMsgLength;
+    }
+
+    /**
+     * Number of calls awaiting a response. Only to be called from the client thread.
+     *
+     * @return number of calls awaiting a response.
+     */
+    public int pendingCalls()
+    {
+        return client.size;
+    }
+
+    /**
+     * Send a request whose response will be passed to a callback by {@link #pollResponses}. Only to be called from
+     * the client thread.
+     *
+     * @param msgTypeId type of the request which must be greater than 0.
+     * @param src       array containing the request.
+     * @param offset    in src at which the request begins.
+     * @param length    of the request in bytes.
+     * @param callback  to be called with the response.
+     * @return the correlation id of the call or {@link #NULL_CORRELATION_ID} if too many calls are pending or the
+     * outbound ring is full.
+     */
+    public long call(
+        final int msgTypeId,
+        final byte[] src,
+        final int offset,
+        final int length,
+        final CorrelatedMessageHandler callback)
+    {
+        if (null == callback)
+        {
+            throw new NullPointerException("callback must not be null");
+        }
+
+        if (client.size >= maxPendingCalls)
+        {
+            return NULL_CORRELATION_ID;
+        }
+
+        final long correlationId = client.nextCorrelationId;
+        if (!write(outbound, correlationId, msgTypeId, src, offset, length))
+        {
+            return NULL_CORRELATION_ID;
+        }
+
+        client.nextCorrelationId = correlationId + 1;
+        client.put(correlationId, callback);
+
+        return correlationId;
+    }
+
+    /**
+     * Send a request whose response will be passed to the handler given to {@link #pollResponses}. Only to be
+     * called from the client thread.
+     *
+     * @param msgTypeId type of the request which must be greater than 0.
+     * @param src       array containing the request.
+     * @param offset    in src at which the request begins.
+     * @param length    of the request in bytes.
+     * @return the correlation id of the call or {@link #NULL_CORRELATION_ID} if too many calls are pending or the
+     * outbound ring is full.
+     */
+    public long call(final int msgTypeId, final byte[] src, final int offset, final int length)
+    {
+        return call(msgTypeId, src, offset, length, POLLED);
+    }
+
+    /**
+     * Is a call still awaiting its response. Only to be called from the client thread.
+     *
+     * @param correlationId of the call.
+     * @return true if the call is awaiting its response.
+     */
+    public boolean isPending(final long correlationId)
+    {
+        return null != client.get(correlationId);
+    }
+
+    /**
+     * Stop waiting for the response to a call, for example on a timeout, so the response is discarded when it
+     * arrives. Only to be called from the client thread.
+     *
+     * @param correlationId of the call.
+     * @return true if the call was pending.
+     */
+    public boolean cancel(final long correlationId)
+    {
+        return null != client.remove(correlationId);
+    }
+
+    /**
+     * Read responses, completing each pending call by passing the response to its callback or, for calls made
+     * without a callback, to the given handler. Responses to cancelled calls are discarded. Only to be called from
+     * the client thread.
+     *
+     * @param handler    for responses to calls made without a callback.
+     * @param limitCount on the number of responses to be read.
+     * @return the number of responses read.
+     */
+    public int pollResponses(final CorrelatedMessageHandler handler, final int limitCount)
+    {
+        client.polledResponseHandler = handler;
+
+        return inbound.read(client, limitCount);
+    }
+
+    /**
+     * Read requests, passing each to a handler which may respond immediately or later with
+     * {@link #respond(long, int, byte[], int, int)}. Only to be called from the server thread.
+     *
+     * @param handler    for requests.
+     * @param limitCount on the number of requests to be read.
+     * @return the number of requests read.
+     */
+    public int pollRequests(final CorrelatedMessageHandler handler, final int limitCount)
+    {
+        server.requestHandler = handler;
+
+        return outbound.read(server, limitCount);
+    }
+
+    /**
+     * Send the response to a call. Only to be called from the server thread.
+     *
+     * @param correlationId of the call given with the request.
+     * @param msgTypeId     type of the response which must be greater than 0.
+     * @param src           array containing the response.
+     * @param offset        in src at which the response begins.
+     * @param length        of the response in bytes.
+     * @return true if sent or false if the inbound ring is full.
+     */
+    public boolean respond(
+        final long correlationId, final int msgTypeId, final byte[] src, final int offset, final int length)
+    {
+        return write(inbound, correlationId, msgTypeId, src, offset, length);
+    }
+
+    private boolean write(
+        final OneToOneRingBuffer ringBuffer,
+        final long correlationId,
+        final int msgTypeId,
+        final byte[] src,
+        final int offset,
+        final int length)
+    {
+        if (length > maxMsgLength)
+        {
+            throw new IllegalArgumentException("Message exceeds maxMsgLength of " + maxMsgLength + ": " + length);
+        }
+
+        final int index = ringBuffer.tryClaim(msgTypeId, CORRELATION_ID_LENGTH + length);
+        if (index < 0)
+        {
+            return false;
+        }
+
+        ringBuffer.buffer().putLong(index, correlationId);
+        ringBuffer.putBytes(index + CORRELATION_ID_LENGTH, src, offset, length);
+        ringBuffer.commit(index);
+
+        return true;
+    }
+}
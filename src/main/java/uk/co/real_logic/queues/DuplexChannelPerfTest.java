@@ -0,0 +1,196 @@
+/*
+ * Copyright 2016 Real Logic Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.co.real_logic.queues;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static uk.co.real_logic.queues.AllocationMeter.allocatedBytes;
+
+/**
+ * Compares calls per second and client bytes allocated per call between a {@link DuplexChannel} and a pair of
+ * {@link OneToOneConcurrentArrayQueue3}s carrying request and response objects with a {@link ConcurrentHashMap} of
+ * pending {@link CompletableFuture}s. The client keeps a window of calls outstanding to a server on another thread.
+ * <p>
+ * Usage: java uk.co.real_logic.queues.DuplexChannelPerfTest
+ */
+public class DuplexChannelPerfTest
+{
+    public static final int CALLS = 10 * 1000 * 1000;
+    public static final int WINDOW = 64;
+    public static final int RING_BUFFER_CAPACITY = 64 * 1024;
+    public static final int REQUEST_TYPE_ID = 1;
+    public static final int RESPONSE_TYPE_ID = 2;
+
+    public static void main(final String[] args) throws Exception
+    {
+        for (int i = 0; i < 5; i++)
+        {
+            System.gc();
+            duplexChannelRun(i);
+        }
+
+        for (int i = 0; i < 5; i++)
+        {
+            System.gc();
+            queuesAndFuturesRun(i);
+        }
+    }
+
+    private static void duplexChannelRun(final int runNumber) throws Exception
+    {
+        final DuplexChannel channel = new DuplexChannel(RING_BUFFER_CAPACITY, WINDOW);
+        final Thread server = new Thread(
+            () ->
+            {
+                final byte[] response = new byte[8];
+                final CorrelatedMessageHandler handler =
+                    (correlationId, msgTypeId, buffer, index, length) ->
+                    {
+                        while (!channel.respond(correlationId, RESPONSE_TYPE_ID, response, 0, response.length))
+                        {
+                            Thread.yield();
+                        }
+                    };
+
+                int served = 0;
+                while (served < CALLS)
+                {
+                    final int read = channel.pollRequests(handler, WINDOW);
+                    if (0 == read)
+                    {
+                        Thread.yield();
+                    }
+
+                    served += read;
+                }
+            });
+
+        final long[] completed = new long[1];
+        final CorrelatedMessageHandler callback =
+            (correlationId, msgTypeId, buffer, index, length) -> completed[0] += buffer.getLong(index) + 1;
+        final byte[] request = new byte[8];
+        ByteBuffer.wrap(request).order(ByteOrder.nativeOrder()).putLong(0, 777);
+
+        server.start();
+        final long startBytes = allocatedBytes();
+        final long start = System.nanoTime();
+
+        int sent = 0;
+        while (completed[0] < CALLS)
+        {
+            while (sent < CALLS && DuplexChannel.NULL_CORRELATION_ID != channel.call(REQUEST_TYPE_ID, request, 0, 8, callback))
+            {
+                sent++;
+            }
+
+            if (0 == channel.pollResponses(callback, WINDOW))
+            {
+                Thread.yield();
+            }
+        }
+
+        report(runNumber, "DuplexChannel", start, allocatedBytes() - startBytes);
+        server.join();
+    }
+
+    private static void queuesAndFuturesRun(final int runNumber) throws Exception
+    {
+        final OneToOneConcurrentArrayQueue3<Message> requests = new OneToOneConcurrentArrayQueue3<>(WINDOW);
+        final OneToOneConcurrentArrayQueue3<Message> responses = new OneToOneConcurrentArrayQueue3<>(WINDOW);
+        final ConcurrentHashMap<Long, CompletableFuture<Long>> pendingCalls = new ConcurrentHashMap<>();
+        final Thread server = new Thread(
+            () ->
+            {
+                int served = 0;
+                while (served < CALLS)
+                {
+                    final Message request = requests.poll();
+                    if (null == request)
+                    {
+                        Thread.yield();
+                        continue;
+                    }
+
+                    final Message response = new Message(request.correlationId, 0);
+                    while (!responses.offer(response))
+                    {
+                        Thread.yield();
+                    }
+
+                    served++;
+                }
+            });
+
+        final long[] completed = new long[1];
+        server.start();
+        final long startBytes = allocatedBytes();
+        final long start = System.nanoTime();
+
+        long sent = 0;
+        while (completed[0] < CALLS)
+        {
+            while (sent < CALLS && pendingCalls.size() < WINDOW)
+            {
+                final CompletableFuture<Long> future = new CompletableFuture<>();
+                future.thenAccept((value) -> completed[0] += value.longValue() + 1);
+                pendingCalls.put(Long.valueOf(sent), future);
+                if (!requests.offer(new Message(sent, 777)))
+                {
+                    pendingCalls.remove(Long.valueOf(sent));
+                    break;
+                }
+
+                sent++;
+            }
+
+            final Message response = responses.poll();
+            if (null == response)
+            {
+                Thread.yield();
+                continue;
+            }
+
+            pendingCalls.remove(Long.valueOf(response.correlationId)).complete(Long.valueOf(response.value));
+        }
+
+        report(runNumber, "QueuesAndFutures", start, allocatedBytes() - startBytes);
+        server.join();
+    }
+
+    private static void report(final int runNumber, final String name, final long start, final long allocatedBytes)
+    {
+        final long duration = System.nanoTime() - start;
+        final long ops = (CALLS * 1000L * 1000L * 1000L) / duration;
+        System.out.format("%d - calls/sec=%,d client B/call=%.2f - %s\n",
+                          Integer.valueOf(runNumber), Long.valueOf(ops),
+                          Double.valueOf((double)allocatedBytes / CALLS), name);
+    }
+
+    public static final class Message
+    {
+        public final long correlationId;
+        public final long value;
+
+        public Message(final long correlationId, final long value)
+        {
+            this.correlationId = correlationId;
+            this.value = value;
+        }
+    }
+}
@@ -0,0 +1,33 @@
+/*
+ * Copyright 2016 Real Logic Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.co.real_logic.queues;
+
+/**
+ * Callback for events read in place from a {@link OneToOneEventRing}.
+ *
+ * @param <T> type of the preallocated event.
+ */
+@FunctionalInterface
+public interface EventHandler<T>
+{
+    /**
+     * Called for each published event. The event is owned by the ring and must not be retained after the callback.
+     *
+     * @param event    preallocated entry holding the published values.
+     * @param sequence at which the event was published.
+     */
+    void onEvent(T event, long sequence);
+}
@@ -0,0 +1,283 @@
+/*
+ * Copyright 2016 Real Logic Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.co.real_logic.queues;
+
+import java.util.Arrays;
+
+/**
+ * Hashed timer wheel of deadlines held in a single long array which is owned by one duty-cycle thread.
+ * <p>
+ * Each tick of the wheel is a spoke with a number of slots and a timer is stored in a free slot of the spoke its
+ * deadline hashes to. Slots are reused, so each slot counts the timers scheduled in it and the timer id is that
+ * generation in the upper 32 bits with the slot and spoke indexes in the lower. A stale id, such as one taken from
+ * the expiry queue after its slot has been reused, therefore does not match the newer timer, unless the slot has
+ * since been reused 2^31 times.
+ * <p>
+ * Deadlines beyond one revolution of the wheel stay in their spoke until a revolution in which they have passed.
+ * Scheduling, cancelling and polling allocate nothing unless a spoke is full, in which case the slots per spoke
+ * are doubled.
+ * <p>
+ * Expired timer ids are offered to a {@link OneToOneConcurrentLongQueue} for a consumer on another thread. When
+ * the queue is full the timer is kept and expires on a later poll.
+ */
+public final class HashedTimerWheel implements Agent
+{
+    public static final long NULL_DEADLINE = Long.MAX_VALUE;
+
+    private final OneToOneConcurrentLongQueue expiryQueue;
+    private final long startTimeNs;
+    private final int resolutionBitsToShift;
+    private final int tickMask;
+    private final int tickBits;
+    private final int ticksPerWheel;
+    private int allocationBitsToShift;
+    private int tickAllocation;
+    private int pollIndex;
+    private long currentTick;
+    private long timerCount;
+    private long[] wheel;
+    private int[] generations;
+
+    /**
+     * Construct a timer wheel.
+     *
+     * @param expiryQueue           into which expired timer ids are offered, with a negative nullValue.
+     * @param startTimeNs           from which ticks are counted on the {@link System#nanoTime()} clock.
+     * @param tickResolutionNs      duration of each tick which must be a power of two.
+     * @param ticksPerWheel         number of spokes in the wheel which must be a power of two.
+     * @param initialTickAllocation number of slots per spoke which must be a power of two.
+     */
+    public HashedTimerWheel(
+        final OneToOneConcurrentLongQueue expiryQueue,
+        final long startTimeNs,
+        final long tickResolutionNs,
+        final int ticksPerWheel,
+        final int initialTickAllocation)
+    {
+        checkPowerOfTwo("tickResolutionNs", tickResolutionNs);
+        checkPowerOfTwo("ticksPerWheel", ticksPerWheel);
+        checkPowerOfTwo("initialTickAllocation", initialTickAllocation);
+
+        if (expiryQueue.nullValue() >= 0)
+        {
+            throw new IllegalArgumentException("Expiry queue nullValue must be negative: " + expiryQueue.nullValue());
+        }
+
+        this.expiryQueue = expiryQueue;
+        this.startTimeNs = startTimeNs;
+        this.ticksPerWheel = ticksPerWheel;
+        tickMask = ticksPerWheel - 1;
+        tickBits = Integer.numberOfTrailingZeros(ticksPerWheel);
+        resolutionBitsToShift = Long.numberOfTrailingZeros(tickResolutionNs);
+        tickAllocation = initialTickAllocation;
+        allocationBitsToShift = Integer.numberOfTrailingZeros(initialTickAllocation);
+
+        wheel = new long[ticksPerWheel * initialTickAllocation];
+        Arrays.fill(wheel, NULL_DEADLINE);
+        generations = new int[wheel.length];
+    }
+
+    /**
+     * Schedule a timer for a deadline. Deadlines which have already passed expire on the next poll.
+     *
+     * @param deadlineNs on the {@link System#nanoTime()} clock at which the timer expires.
+     * @return the id of the timer which is never negative.
+     */
+    public long scheduleTimer(final long deadlineNs)
+    {
+        final long deadlineTick = Math.max((deadlineNs - startTimeNs) >> resolutionBitsToShift, currentTick);
+        final int spokeIndex = (int)deadlineTick & tickMask;
+        final int tickStartIndex = spokeIndex << allocationBitsToShift;
+
+        for (int i = 0; i < tickAllocation; i++)
+        {
+            if (NULL_DEADLINE == wheel[tickStartIndex + i])
+            {
+                wheel[tickStartIndex + i] = deadlineNs;
+                timerCount++;
+
+                return timerIdForSlot(tickStartIndex + i, spokeIndex, i);
+            }
+        }
+
+        return increaseCapacity(deadlineNs, spokeIndex);
+    }
+
+    /**
+     * Cancel a previously scheduled timer.
+     *
+     * @param timerId returned when the timer was scheduled.
+     * @return true if the timer was cancelled, false if it had expired or was already cancelled, or if the id is not
+     * one which could have been returned.
+     */
+    public boolean cancelTimer(final long timerId)
+    {
+        if (timerId < 0)
+        {
+            return false;
+        }
+
+        final int location = (int)timerId;
+        final int spokeIndex = location & tickMask;
+        final int slotIndex = location >>> tickBits;
+
+        if (slotIndex < tickAllocation)
+        {
+            final int wheelIndex = (spokeIndex << allocationBitsToShift) + slotIndex;
+            if (NULL_DEADLINE != wheel[wheelIndex] && (int)(timerId >>> 32) == generations[wheelIndex])
+            {
+                wheel[wheelIndex] = NULL_DEADLINE;
+                timerCount--;
+
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Expire timers in the current tick whose deadline has passed, offering their ids to the expiry queue, and move
+     * to the next tick once the current one has passed and been fully polled.
+     *
+     * @param nowNs       current time on the {@link System#nanoTime()} clock.
+     * @param expiryLimit on the number of timers to expire.
+     * @return the number of timers expired.
+     */
+    public int poll(final long nowNs, final int expiryLimit)
+    {
+        int timersExpired = 0;
+
+        if (timerCount > 0)
+        {
+            final int spokeIndex = (int)currentTick & tickMask;
+            final int tickStartIndex = spokeIndex << allocationBitsToShift;
+
+            for (int i = 0, length = tickAllocation; i < length && expiryLimit > timersExpired; i++)
+            {
+                final int wheelIndex = tickStartIndex + pollIndex;
+                final long deadlineNs = wheel[wheelIndex];
+
+                if (nowNs >= deadlineNs)
+                {
+                    if (!expiryQueue.offerLong(timerId(wheelIndex, spokeIndex, pollIndex)))
+                    {
+                        return timersExpired;
+                    }
+
+                    wheel[wheelIndex] = NULL_DEADLINE;
+                    timerCount--;
+                    timersExpired++;
+                }
+
+                pollIndex = (pollIndex + 1) >= length ? 0 : (pollIndex + 1);
+            }
+
+            if (expiryLimit > timersExpired && currentTickTimeNs() <= nowNs)
+            {
+                currentTick++;
+                pollIndex = 0;
+            }
+        }
+        else if (currentTickTimeNs() <= nowNs)
+        {
+            currentTick++;
+            pollIndex = 0;
+        }
+
+        return timersExpired;
+    }
+
+    public int doWork()
+    {
+        return poll(System.nanoTime(), Integer.MAX_VALUE);
+    }
+
+    public String roleName()
+    {
+        return "timer-wheel";
+    }
+
+    /**
+     * Time at which the current tick ends and the next may be polled.
+     *
+     * @return time at which the current tick ends.
+     */
+    public long currentTickTimeNs()
+    {
+        return ((currentTick + 1) << resolutionBitsToShift) + startTimeNs;
+    }
+
+    public long timerCount()
+    {
+        return timerCount;
+    }
+
+    public int tickAllocation()
+    {
+        return tickAllocation;
+    }
+
+    private long increaseCapacity(final long deadlineNs, final int spokeIndex)
+    {
+        final int newTickAllocation = tickAllocation << 1;
+        final int newAllocationBitsToShift = Integer.numberOfTrailingZeros(newTickAllocation);
+        final long[] newWheel = new long[ticksPerWheel * newTickAllocation];
+        final int[] newGenerations = new int[newWheel.length];
+        Arrays.fill(newWheel, NULL_DEADLINE);
+
+        for (int j = 0; j < ticksPerWheel; j++)
+        {
+            final int srcIndex = j << allocationBitsToShift;
+            final int dstIndex = j << newAllocationBitsToShift;
+            System.arraycopy(wheel, srcIndex, newWheel, dstIndex, tickAllocation);
+            System.arraycopy(generations, srcIndex, newGenerations, dstIndex, tickAllocation);
+        }
+
+        final int wheelIndex = (spokeIndex << newAllocationBitsToShift) + tickAllocation;
+        final int slotIndex = tickAllocation;
+        newWheel[wheelIndex] = deadlineNs;
+        timerCount++;
+
+        tickAllocation = newTickAllocation;
+        allocationBitsToShift = newAllocationBitsToShift;
+        wheel = newWheel;
+        generations = newGenerations;
+
+        return timerIdForSlot(wheelIndex, spokeIndex, slotIndex);
+    }
+
+    private long timerIdForSlot(final int wheelIndex, final int spokeIndex, final int slotIndex)
+    {
+        final int generation = (generations[wheelIndex] + 1) & Integer.MAX_VALUE;
+        generations[wheelIndex] = generation;
+
+        return timerId(wheelIndex, spokeIndex, slotIndex);
+    }
+
+    private long timerId(final int wheelIndex, final int spokeIndex, final int slotIndex)
+    {
+        return ((long)generations[wheelIndex] << 32) | ((slotIndex << tickBits) | spokeIndex);
+    }
+
+    private static void checkPowerOfTwo(final String name, final long value)
+    {
+        if (value <= 0 || 1 != Long.bitCount(value))
+        {
+            throw new IllegalArgumentException(name + " must be a positive power of two: " + value);
+        }
+    }
+}
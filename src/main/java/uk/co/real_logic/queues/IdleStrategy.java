@@ -0,0 +1,42 @@
+/*
+ * Copyright 2016 Real Logic Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.co.real_logic.queues;
+
+/**
+ * Strategy for a thread to idle when it has no work to do, such as when a poll finds a queue empty or an offer
+ * finds it full. The choice trades CPU consumption against the latency to react when work arrives.
+ * <p>
+ * Implementations may hold state and should not be shared between threads.
+ */
+public interface IdleStrategy
+{
+    /**
+     * Idle if no work was done in the last duty cycle, otherwise reset any backoff state.
+     *
+     * @param workCount performed in the last duty cycle.
+     */
+    void idle(int workCount);
+
+    /**
+     * Idle unconditionally, progressing any backoff state.
+     */
+    void idle();
+
+    /**
+     * Reset the internal state ready for the next period of idling.
+     */
+    void reset();
+}
@@ -0,0 +1,103 @@
+/*
+ * Copyright 2016 Real Logic Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.co.real_logic.queues;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+import static uk.co.real_logic.queues.OneToOneRingBuffer.HEADER_LENGTH;
+
+/**
+ * Inter-process version of {@link OneToOneRingBuffer} where the records and the head and tail counters live in a
+ * memory-mapped file so that a producer and consumer in different processes can exchange messages.
+ * <p>
+ * The file is the data region of capacity bytes followed by a trailer holding the tail and head counters, each on
+ * its own cache line. The counters are accessed by address with ordered and volatile operations, and records are
+ * handled by the same {@link AbstractOneToOneRingBuffer} code as the in-process version. Cached copies of the
+ * counters are kept in the local process.
+ */
+public final class IpcOneToOneRingBuffer extends AbstractOneToOneRingBuffer
+{
+    public static final int COUNTER_PADDING = 128;
+    public static final int TAIL_COUNTER_OFFSET = COUNTER_PADDING;
+    public static final int HEAD_COUNTER_OFFSET = TAIL_COUNTER_OFFSET + COUNTER_PADDING;
+    public static final int TRAILER_LENGTH = HEAD_COUNTER_OFFSET + COUNTER_PADDING;
+
+    /**
+     * Create a new file, or truncate an existing one, and map it as an empty ring buffer.
+     *
+     * @param file     to be created.
+     * @param capacity of the data region in bytes which must be a power of two.
+     * @return the mapped ring buffer.
+     * @throws IOException if the file cannot be created or mapped.
+     */
+    public static IpcOneToOneRingBuffer create(final File file, final int capacity) throws IOException
+    {
+        if (Integer.bitCount(capacity) != 1 || capacity < HEADER_LENGTH)
+        {
+            throw new IllegalArgumentException("Capacity must be a positive power of two: " + capacity);
+        }
+
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw"))
+        {
+            raf.setLength(0);
+            raf.setLength(capacity + TRAILER_LENGTH);
+
+            return new IpcOneToOneRingBuffer(raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, raf.length()));
+        }
+    }
+
+    /**
+     * Attach to a ring buffer file previously created with {@link #create(File, int)}, possibly by another process.
+     *
+     * @param file to be mapped.
+     * @return the mapped ring buffer.
+     * @throws IOException if the file cannot be mapped.
+     */
+    public static IpcOneToOneRingBuffer attach(final File file) throws IOException
+    {
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw"))
+        {
+            return new IpcOneToOneRingBuffer(raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, raf.length()));
+        }
+    }
+
+    private IpcOneToOneRingBuffer(final MappedByteBuffer buffer)
+    {
+        this(buffer, buffer.capacity() - TRAILER_LENGTH);
+    }
+
+    private IpcOneToOneRingBuffer(final MappedByteBuffer buffer, final int capacity)
+    {
+        super(buffer.order(ByteOrder.nativeOrder()), checkCapacity(buffer, capacity),
+              null, UnsafeAccess.address(buffer) + capacity + TAIL_COUNTER_OFFSET,
+              null, UnsafeAccess.address(buffer) + capacity + HEAD_COUNTER_OFFSET);
+    }
+
+    private static int checkCapacity(final MappedByteBuffer buffer, final int capacity)
+    {
+        if (Integer.bitCount(capacity) != 1 || capacity < HEADER_LENGTH)
+        {
+            throw new IllegalStateException("File is not a valid ring buffer of length: " + buffer.capacity());
+        }
+
+        return capacity;
+    }
+}
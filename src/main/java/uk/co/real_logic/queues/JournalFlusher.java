@@ -0,0 +1,77 @@
+/*
+ * Copyright 2016 Real Logic Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.co.real_logic.queues;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Background flush policy for a {@link MappedJournal}, run as an {@link Agent} off the appending thread.
+ * <p>
+ * Appended records are forced to storage when the unflushed bytes reach a threshold or the flush interval has
+ * elapsed, whichever comes first. The next segment is also mapped ahead of the appender. The time taken by each
+ * flush is recorded in a histogram which may be read once the agent has stopped.
+ */
+public final class JournalFlusher implements Agent
+{
+    private final MappedJournal journal;
+    private final long flushIntervalNs;
+    private final long flushThresholdBytes;
+    private final LatencyHistogram flushLatencies = new LatencyHistogram(TimeUnit.SECONDS.toNanos(10));
+    private long lastFlushNs;
+
+    /**
+     * Construct a flusher for a journal.
+     *
+     * @param journal             to be flushed.
+     * @param flushIntervalNs     maximum time between flushes when there are unflushed records.
+     * @param flushThresholdBytes of unflushed records at which to flush before the interval has elapsed.
+     */
+    public JournalFlusher(final MappedJournal journal, final long flushIntervalNs, final long flushThresholdBytes)
+    {
+        this.journal = journal;
+        this.flushIntervalNs = flushIntervalNs;
+        this.flushThresholdBytes = flushThresholdBytes;
+        lastFlushNs = System.nanoTime();
+    }
+
+    public int doWork()
+    {
+        int workCount = journal.preallocate() ? 1 : 0;
+
+        final long nowNs = System.nanoTime();
+        final long position = journal.position();
+        final long unflushedBytes = position - journal.flushedPosition();
+        if (unflushedBytes > 0 && (unflushedBytes >= flushThresholdBytes || nowNs - lastFlushNs >= flushIntervalNs))
+        {
+            journal.flush(position);
+            lastFlushNs = System.nanoTime();
+            flushLatencies.recordValue(lastFlushNs - nowNs);
+            workCount++;
+        }
+
+        return workCount;
+    }
+
+    public String roleName()
+    {
+        return "journal-flusher";
+    }
+
+    public LatencyHistogram flushLatencies()
+    {
+        return flushLatencies;
+    }
+}
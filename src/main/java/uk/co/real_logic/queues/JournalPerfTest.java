@@ -0,0 +1,139 @@
+/*
+ * Copyright 2016 Real Logic Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.co.real_logic.queues;
+
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures records per second through a {@link JournalingAgent} between a producer and a downstream consumer, the
+ * latency of each background flush, and records per second when replaying the journal.
+ * <p>
+ * Usage: java uk.co.real_logic.queues.JournalPerfTest [directory] [flush interval ms]
+ */
+public class JournalPerfTest
+{
+    public static final int RING_BUFFER_CAPACITY = 64 * 1024;
+    public static final int SEGMENT_LENGTH = 64 * 1024 * 1024;
+    public static final int REPETITIONS = 10 * 1000 * 1000;
+    public static final int MSG_TYPE_ID = 1;
+    public static final int MSG_LENGTH = 32;
+
+    public static void main(final String[] args) throws Exception
+    {
+        final File baseDirectory = args.length > 0 ?
+            new File(args[0]) : Files.createTempDirectory("journal-perf-test").toFile();
+        final long flushIntervalNs = TimeUnit.MILLISECONDS.toNanos(args.length > 1 ? Long.parseLong(args[1]) : 10);
+
+        for (int i = 0; i < 3; i++)
+        {
+            final File directory = new File(baseDirectory, "run-" + i);
+            try
+            {
+                System.gc();
+                performanceRun(i, directory, flushIntervalNs);
+            }
+            finally
+            {
+                deleteDirectory(directory);
+            }
+        }
+    }
+
+    private static void performanceRun(final int runNumber, final File directory, final long flushIntervalNs)
+        throws Exception
+    {
+        final OneToOneRingBuffer ringBuffer = new OneToOneRingBuffer(RING_BUFFER_CAPACITY);
+        final CountingHandler downstream = new CountingHandler();
+
+        try (MappedJournal journal = MappedJournal.open(directory, SEGMENT_LENGTH))
+        {
+            final JournalFlusher flusher = new JournalFlusher(journal, flushIntervalNs, SEGMENT_LENGTH / 4);
+            final AgentRunner flusherRunner = new AgentRunner(flusher, new SleepingIdleStrategy(100 * 1000));
+            final AgentRunner journalingRunner = new AgentRunner(
+                new JournalingAgent(ringBuffer, journal, downstream, 256), new YieldingIdleStrategy());
+            final Thread flusherThread = flusherRunner.start();
+            final Thread journalingThread = journalingRunner.start();
+
+            final byte[] message = new byte[MSG_LENGTH];
+            final long start = System.nanoTime();
+            for (int i = 0; i < REPETITIONS; i++)
+            {
+                while (!ringBuffer.write(MSG_TYPE_ID, message, 0, message.length))
+                {
+                    Thread.yield();
+                }
+            }
+
+            while (downstream.count < REPETITIONS)
+            {
+                Thread.yield();
+            }
+
+            final long duration = System.nanoTime() - start;
+            journalingRunner.close();
+            journalingThread.join();
+            flusherRunner.close();
+            flusherThread.join();
+
+            final long ops = (REPETITIONS * 1000L * 1000L * 1000L) / duration;
+            System.out.format("%d - journaled records/sec=%,d bytes=%,d flushes=%,d\n",
+                              Integer.valueOf(runNumber), Long.valueOf(ops), Long.valueOf(journal.position()),
+                              Long.valueOf(flusher.flushLatencies().totalCount()));
+            System.out.println("Flush latency (us):");
+            flusher.flushLatencies().outputPercentileDistribution(System.out, 1000.0);
+
+            final CountingHandler replayHandler = new CountingHandler();
+            final long replayStart = System.nanoTime();
+            long position = 0;
+            while (position < journal.position())
+            {
+                position = journal.replay(position, replayHandler, Integer.MAX_VALUE);
+            }
+
+            final long replayDuration = System.nanoTime() - replayStart;
+            final long replayOps = (replayHandler.count * 1000L * 1000L * 1000L) / replayDuration;
+            System.out.format("%d - replayed records/sec=%,d records=%,d\n",
+                              Integer.valueOf(runNumber), Long.valueOf(replayOps), Long.valueOf(replayHandler.count));
+        }
+    }
+
+    private static void deleteDirectory(final File directory)
+    {
+        final File[] files = directory.listFiles();
+        if (null != files)
+        {
+            for (final File file : files)
+            {
+                file.delete();
+            }
+        }
+
+        directory.delete();
+    }
+
+    public static class CountingHandler implements MessageHandler
+    {
+        private volatile long count;
+
+        public void onMessage(final int msgTypeId, final ByteBuffer buffer, final int index, final int length)
+        {
+            count++;
+        }
+    }
+}
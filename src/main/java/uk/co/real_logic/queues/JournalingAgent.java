@@ -0,0 +1,67 @@
+/*
+ * Copyright 2016 Real Logic Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.co.real_logic.queues;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Pipeline stage which drains a {@link OneToOneRingBuffer}, appending each message to a {@link MappedJournal}
+ * before passing it downstream. Appending only copies into mapped memory so a {@link JournalFlusher} on another
+ * thread keeps the disk off this path.
+ */
+public final class JournalingAgent implements Agent, MessageHandler
+{
+    private final OneToOneRingBuffer source;
+    private final MappedJournal journal;
+    private final MessageHandler downstream;
+    private final int readLimit;
+
+    /**
+     * Construct a journaling stage.
+     *
+     * @param source     ring buffer to be drained.
+     * @param journal    to which each message is appended.
+     * @param downstream handler to be called with each message once it has been appended.
+     * @param readLimit  on the number of messages drained in one duty cycle.
+     */
+    public JournalingAgent(
+        final OneToOneRingBuffer source,
+        final MappedJournal journal,
+        final MessageHandler downstream,
+        final int readLimit)
+    {
+        this.source = source;
+        this.journal = journal;
+        this.downstream = downstream;
+        this.readLimit = readLimit;
+    }
+
+    public int doWork()
+    {
+        return source.read(this, readLimit);
+    }
+
+    public String roleName()
+    {
+        return "journaling";
+    }
+
+    public void onMessage(final int msgTypeId, final ByteBuffer buffer, final int index, final int length)
+    {
+        journal.append(msgTypeId, buffer, index, length);
+        downstream.onMessage(msgTypeId, buffer, index, length);
+    }
+}
@@ -0,0 +1,186 @@
+/*
+ * Copyright 2016 Real Logic Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.co.real_logic.queues;
+
+import java.io.PrintStream;
+import java.util.Arrays;
+
+/**
+ * Log-linear histogram of long values, such as latencies in nanoseconds, with all storage allocated on construction.
+ * <p>
+ * Values below {@link #SUB_BUCKET_COUNT} are recorded exactly. Above that each power of two range is split into
+ * {@link #SUB_BUCKET_COUNT} / 2 linear sub-buckets giving a relative precision better than 2%. Values above the
+ * highest trackable value are counted in the last bucket but the exact maximum is always retained.
+ */
+public final class LatencyHistogram
+{
+    public static final int SUB_BUCKET_BITS = 7;
+    public static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+    public static final int SUB_BUCKET_HALF_COUNT = SUB_BUCKET_COUNT / 2;
+
+    private static final double[] PERCENTILES = { 50.0, 90.0, 99.0, 99.9, 99.99, 99.999, 99.9999 };
+
+    private final long highestTrackableValue;
+    private final long[] counts;
+    private long totalCount;
+    private long minValue = Long.MAX_VALUE;
+    private long maxValue;
+
+    /**
+     * Construct a histogram able to track values from 0 to highestTrackableValue.
+     *
+     * @param highestTrackableValue which is tracked with full precision.
+     */
+    public LatencyHistogram(final long highestTrackableValue)
+    {
+        if (highestTrackableValue < SUB_BUCKET_COUNT)
+        {
+            throw new IllegalArgumentException("highestTrackableValue must be at least " + SUB_BUCKET_COUNT);
+        }
+
+        this.highestTrackableValue = highestTrackableValue;
+        counts = new long[countsIndex(highestTrackableValue) + 1];
+    }
+
+    /**
+     * Get the index in the counts array for a value.
+     *
+     * @param value to be looked up.
+     * @return the index of the bucket in which the value is counted.
+     */
+    public static int countsIndex(final long value)
+    {
+        final int magnitude = Math.max(0, (63 - Long.numberOfLeadingZeros(value)) - (SUB_BUCKET_BITS - 1));
+        if (0 == magnitude)
+        {
+            return (int)value;
+        }
+
+        final int subBucketIndex = (int)(value >>> magnitude);
+
+        return SUB_BUCKET_COUNT + ((magnitude - 1) * SUB_BUCKET_HALF_COUNT) + (subBucketIndex - SUB_BUCKET_HALF_COUNT);
+    }
+
+    /**
+     * Get the lowest value that is counted in the bucket at an index.
+     *
+     * @param index of the bucket.
+     * @return the lowest value counted in the bucket.
+     */
+    public static long lowestValueAt(final int index)
+    {
+        if (index < SUB_BUCKET_COUNT)
+        {
+            return index;
+        }
+
+        final int magnitude = ((index - SUB_BUCKET_COUNT) / SUB_BUCKET_HALF_COUNT) + 1;
+        final long subBucketIndex = ((index - SUB_BUCKET_COUNT) % SUB_BUCKET_HALF_COUNT) + SUB_BUCKET_HALF_COUNT;
+
+        return subBucketIndex << magnitude;
+    }
+
+    /**
+     * Get the highest value that is counted in the bucket at an index.
+     *
+     * @param index of the bucket.
+     * @return the highest value counted in the bucket.
+     */
+    public static long highestValueAt(final int index)
+    {
+        return lowestValueAt(index + 1) - 1;
+    }
+
+    /**
+     * Record a value which must not be negative.
+     *
+     * @param value to be recorded.
+     */
+    public void recordValue(final long value)
+    {
+        if (value < 0)
+        {
+            throw new IllegalArgumentException("Value must not be negative: " + value);
+        }
+
+        counts[countsIndex(Math.min(value, highestTrackableValue))]++;
+        totalCount++;
+        minValue = Math.min(minValue, value);
+        maxValue = Math.max(maxValue, value);
+    }
+
+    public long totalCount()
+    {
+        return totalCount;
+    }
+
+    public long minValue()
+    {
+        return 0 == totalCount ? 0 : minValue;
+    }
+
+    public long maxValue()
+    {
+        return maxValue;
+    }
+
+    /**
+     * Get the value at or below which the given percentage of recorded values fall, within the bucket precision.
+     *
+     * @param percentile in the range 0.0 to 100.0.
+     * @return the highest value in the bucket containing the percentile, bounded by the recorded maximum.
+     */
+    public long valueAtPercentile(final double percentile)
+    {
+        final long countAtPercentile = Math.max(1, (long)Math.ceil((percentile / 100.0) * totalCount));
+        long cumulativeCount = 0;
+        for (int i = 0; i < counts.length; i++)
+        {
+            cumulativeCount += counts[i];
+            if (cumulativeCount >= countAtPercentile)
+            {
+                return i == counts.length - 1 ? maxValue : Math.min(highestValueAt(i), maxValue);
+            }
+        }
+
+        return maxValue;
+    }
+
+    public void reset()
+    {
+        Arrays.fill(counts, 0);
+        totalCount = 0;
+        minValue = Long.MAX_VALUE;
+        maxValue = 0;
+    }
+
+    /**
+     * Print the percentile distribution up to the maximum with values scaled by a ratio, e.g. 1000.0 for ns to us.
+     *
+     * @param out                    to print to.
+     * @param outputValueUnitScaling by which values are divided when printed.
+     */
+    public void outputPercentileDistribution(final PrintStream out, final double outputValueUnitScaling)
+    {
+        out.format("count=%,d min=%.3f%n", Long.valueOf(totalCount), Double.valueOf(minValue() / outputValueUnitScaling));
+        for (final double percentile : PERCENTILES)
+        {
+            out.format("%10.4f%%=%.3f%n",
+                Double.valueOf(percentile), Double.valueOf(valueAtPercentile(percentile) / outputValueUnitScaling));
+        }
+        out.format("%10s =%.3f%n", "max", Double.valueOf(maxValue / outputValueUnitScaling));
+    }
+}
@@ -0,0 +1,260 @@
+/*
+ * Copyright 2016 Real Logic Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.co.real_logic.queues;
+
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Queue;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import static uk.co.real_logic.queues.OneToOneConcurrentArrayQueue3.findNextPositivePowerOfTwo;
+
+/**
+ * Many producer to many consumer bounded array queue.
+ * <p>
+ * Each slot carries a sequence number which tells producers when the slot is free and consumers when it holds a
+ * published element. Producers and consumers claim positions by CAS on the tail and head respectively and then
+ * hand the slot over by an ordered store of its sequence, so neither side allocates.
+ *
+ * @param <E> type of the elements stored in the queue.
+ */
+public final class ManyToManyConcurrentArrayQueue<E>
+    implements Queue<E>
+{
+    private final int capacity;
+    private final int mask;
+    private final E[] buffer;
+    private final AtomicLongArray sequences;
+
+    private final PaddedAtomicLong tail = new PaddedAtomicLong(0);
+    private final PaddedAtomicLong head = new PaddedAtomicLong(0);
+
+    @SuppressWarnings("unchecked")
+    public ManyToManyConcurrentArrayQueue(final int capacity)
+    {
+        this.capacity = findNextPositivePowerOfTwo(capacity);
+        mask = this.capacity - 1;
+        buffer = (E[])new Object[this.capacity];
+        sequences = new AtomicLongArray(this.capacity);
+
+        for (int i = 0; i < this.capacity; i++)
+        {
+            sequences.lazySet(i, i);
+        }
+    }
+
+    public boolean add(final E e)
+    {
+        if (offer(e))
+        {
+            return true;
+        }
+
+        throw new IllegalStateException("Queue is full");
+    }
+
+    public boolean offer(final E e)
+    {
+        if (null == e)
+        {
+            throw new NullPointerException("Null is not a valid element");
+        }
+
+        long currentTail;
+        int index;
+        while (true)
+        {
+            currentTail = tail.get();
+            index = (int)currentTail & mask;
+            final long sequence = sequences.get(index);
+
+            if (sequence < currentTail)
+            {
+                return false;
+            }
+
+            if (sequence == currentTail && tail.compareAndSet(currentTail, currentTail + 1))
+            {
+                break;
+            }
+        }
+
+        buffer[index] = e;
+        sequences.lazySet(index, currentTail + 1);
+
+        return true;
+    }
+
+    public E poll()
+    {
+        long currentHead;
+        int index;
+        while (true)
+        {
+            currentHead = head.get();
+            index = (int)currentHead & mask;
+            final long sequence = sequences.get(index);
+
+            if (sequence < currentHead + 1)
+            {
+                return null;
+            }
+
+            if (sequence == currentHead + 1 && head.compareAndSet(currentHead, currentHead + 1))
+            {
+                break;
+            }
+        }
+
+        final E e = buffer[index];
+        buffer[index] = null;
+        sequences.lazySet(index, currentHead + capacity);
+
+        return e;
+    }
+
+    public E remove()
+    {
+        final E e = poll();
+        if (null == e)
+        {
+            throw new NoSuchElementException("Queue is empty");
+        }
+
+        return e;
+    }
+
+    public E element()
+    {
+        final E e = peek();
+        if (null == e)
+        {
+            throw new NoSuchElementException("Queue is empty");
+        }
+
+        return e;
+    }
+
+    public E peek()
+    {
+        return buffer[(int)head.get() & mask];
+    }
+
+    public int size()
+    {
+        long currentHeadBefore;
+        long currentTail;
+        long currentHeadAfter = head.get();
+
+        do
+        {
+            currentHeadBefore = currentHeadAfter;
+            currentTail = tail.get();
+            currentHeadAfter = head.get();
+        }
+        while (currentHeadAfter != currentHeadBefore);
+
+        return (int)Math.min(currentTail - currentHeadAfter, capacity);
+    }
+
+    public boolean isEmpty()
+    {
+        return tail.get() == head.get();
+    }
+
+    public boolean contains(final Object o)
+    {
+        if (null == o)
+        {
+            return false;
+        }
+
+        for (long i = head.get(), limit = tail.get(); i < limit; i++)
+        {
+            final E e = buffer[(int)i & mask];
+            if (o.equals(e))
+            {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    public Iterator<E> iterator()
+    {
+        throw new UnsupportedOperationException();
+    }
+
+    public Object[] toArray()
+    {
+        throw new UnsupportedOperationException();
+    }
+
+    public <T> T[] toArray(final T[] a)
+    {
+        throw new UnsupportedOperationException();
+    }
+
+    public boolean remove(final Object o)
+    {
+        throw new UnsupportedOperationException();
+    }
+
+    public boolean containsAll(final Collection<?> c)
+    {
+        for (final Object o : c)
+        {
+            if (!contains(o))
+            {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    public boolean addAll(final Collection<? extends E> c)
+    {
+        for (final E e : c)
+        {
+            add(e);
+        }
+
+        return true;
+    }
+
+    public boolean removeAll(final Collection<?> c)
+    {
+        throw new UnsupportedOperationException();
+    }
+
+    public boolean retainAll(final Collection<?> c)
+    {
+        throw new UnsupportedOperationException();
+    }
+
+    public void clear()
+    {
+        Object value;
+        do
+        {
+            value = poll();
+        }
+        while (null != value);
+    }
+}
@@ -0,0 +1,226 @@
+/*
+ * Copyright 2016 Real Logic Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.co.real_logic.queues;
+
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Queue;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import static uk.co.real_logic.queues.OneToOneConcurrentArrayQueue3.findNextPositivePowerOfTwo;
+
+/**
+ * Many producer to one consumer variant of {@link OneToOneConcurrentArrayQueue3}.
+ * <p>
+ * Producers claim a slot by CAS on the tail and then publish the element into it with an ordered store.
+ * The consumer treats a null slot as empty so it never sees a claimed slot before the element is visible.
+ *
+ * @param <E> type of the elements stored in the queue.
+ */
+public final class ManyToOneConcurrentArrayQueue<E>
+    implements Queue<E>
+{
+    private final int capacity;
+    private final int mask;
+    private final AtomicReferenceArray<E> buffer;
+
+    private final PaddedAtomicLong tail = new PaddedAtomicLong(0);
+    private final PaddedAtomicLong head = new PaddedAtomicLong(0);
+
+    private final PaddedAtomicLong sharedHeadCache = new PaddedAtomicLong(0);
+
+    public ManyToOneConcurrentArrayQueue(final int capacity)
+    {
+        this.capacity = findNextPositivePowerOfTwo(capacity);
+        mask = this.capacity - 1;
+        buffer = new AtomicReferenceArray<E>(this.capacity);
+    }
+
+    public boolean add(final E e)
+    {
+        if (offer(e))
+        {
+            return true;
+        }
+
+        throw new IllegalStateException("Queue is full");
+    }
+
+    public boolean offer(final E e)
+    {
+        if (null == e)
+        {
+            throw new NullPointerException("Null is not a valid element");
+        }
+
+        long headCache = sharedHeadCache.get();
+        long currentTail;
+        do
+        {
+            currentTail = tail.get();
+            final long wrapPoint = currentTail - capacity;
+            if (headCache <= wrapPoint)
+            {
+                headCache = head.get();
+                if (headCache <= wrapPoint)
+                {
+                    return false;
+                }
+
+                sharedHeadCache.lazySet(headCache);
+            }
+        }
+        while (!tail.compareAndSet(currentTail, currentTail + 1));
+
+        buffer.lazySet((int)currentTail & mask, e);
+
+        return true;
+    }
+
+    public E poll()
+    {
+        final long currentHead = head.get();
+        final int index = (int)currentHead & mask;
+        final E e = buffer.get(index);
+        if (null != e)
+        {
+            buffer.lazySet(index, null);
+            head.lazySet(currentHead + 1);
+        }
+
+        return e;
+    }
+
+    public E remove()
+    {
+        final E e = poll();
+        if (null == e)
+        {
+            throw new NoSuchElementException("Queue is empty");
+        }
+
+        return e;
+    }
+
+    public E element()
+    {
+        final E e = peek();
+        if (null == e)
+        {
+            throw new NoSuchElementException("Queue is empty");
+        }
+
+        return e;
+    }
+
+    public E peek()
+    {
+        return buffer.get((int)head.get() & mask);
+    }
+
+    public int size()
+    {
+        return (int)(tail.get() - head.get());
+    }
+
+    public boolean isEmpty()
+    {
+        return tail.get() == head.get();
+    }
+
+    public boolean contains(final Object o)
+    {
+        if (null == o)
+        {
+            return false;
+        }
+
+        for (long i = head.get(), limit = tail.get(); i < limit; i++)
+        {
+            final E e = buffer.get((int)i & mask);
+            if (o.equals(e))
+            {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    public Iterator<E> iterator()
+    {
+        throw new UnsupportedOperationException();
+    }
+
+    public Object[] toArray()
+    {
+        throw new UnsupportedOperationException();
+    }
+
+    public <T> T[] toArray(final T[] a)
+    {
+        throw new UnsupportedOperationException();
+    }
+
+    public boolean remove(final Object o)
+    {
+        throw new UnsupportedOperationException();
+    }
+
+    public boolean containsAll(final Collection<?> c)
+    {
+        for (final Object o : c)
+        {
+            if (!contains(o))
+            {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    public boolean addAll(final Collection<? extends E> c)
+    {
+        for (final E e : c)
+        {
+            add(e);
+        }
+
+        return true;
+    }
+
+    public boolean removeAll(final Collection<?> c)
+    {
+        throw new UnsupportedOperationException();
+    }
+
+    public boolean retainAll(final Collection<?> c)
+    {
+        throw new UnsupportedOperationException();
+    }
+
+    public void clear()
+    {
+        Object value;
+        do
+        {
+            value = poll();
+        }
+        while (null != value);
+    }
+}
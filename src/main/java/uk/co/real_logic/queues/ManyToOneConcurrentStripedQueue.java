@@ -0,0 +1,315 @@
+/*
+ * Copyright 2016 Real Logic Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.co.real_logic.queues;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Queue;
+
+/**
+ * Many producer to one consumer queue which gives each producer thread its own {@link OneToOneConcurrentArrayQueue3}
+ * lane so producers never contend with each other. The consumer polls the lanes in rotation.
+ * <p>
+ * Elements from one producer are taken in the order offered but there is no ordering across producers. A lane is
+ * bound to a thread the first time it offers, so the number of live producer threads is limited to maxLanes. Once
+ * a producer thread has terminated and its lane has been drained the lane is given to the next new producer, and
+ * {@link #reclaimLanes()} removes such lanes so the consumer no longer scans them. Termination of the previous
+ * owner, seen through {@link Thread#isAlive()}, makes its writes to the lane visible to the new owner.
+ *
+ * @param <E> type of the elements stored in the queue.
+ */
+public final class ManyToOneConcurrentStripedQueue<E>
+    implements Queue<E>
+{
+    private final int laneCapacity;
+    private final int maxLanes;
+    private final ThreadLocal<OneToOneConcurrentArrayQueue3<E>> producerLane;
+    private volatile OneToOneConcurrentArrayQueue3<E>[] lanes;
+    private Thread[] laneOwners;
+    private int nextLaneIndex;
+
+    /**
+     * Construct a striped queue.
+     *
+     * @param laneCapacity of each producer lane which will be rounded up to a power of two.
+     * @param maxLanes     which is the maximum number of distinct producer threads.
+     */
+    @SuppressWarnings("unchecked")
+    public ManyToOneConcurrentStripedQueue(final int laneCapacity, final int maxLanes)
+    {
+        this.laneCapacity = laneCapacity;
+        this.maxLanes = maxLanes;
+        lanes = (OneToOneConcurrentArrayQueue3<E>[])new OneToOneConcurrentArrayQueue3<?>[0];
+        laneOwners = new Thread[0];
+        producerLane = ThreadLocal.withInitial(this::addLane);
+    }
+
+    public int laneCount()
+    {
+        return lanes.length;
+    }
+
+    public boolean add(final E e)
+    {
+        if (offer(e))
+        {
+            return true;
+        }
+
+        throw new IllegalStateException("Queue is full");
+    }
+
+    public boolean offer(final E e)
+    {
+        if (null == e)
+        {
+            throw new NullPointerException("Null is not a valid element");
+        }
+
+        return producerLane.get().offer(e);
+    }
+
+    public E poll()
+    {
+        final OneToOneConcurrentArrayQueue3<E>[] lanes = this.lanes;
+        final int length = lanes.length;
+        int index = nextLaneIndex;
+
+        for (int i = 0; i < length; i++)
+        {
+            if (index >= length)
+            {
+                index = 0;
+            }
+
+            final E e = lanes[index++].poll();
+            if (null != e)
+            {
+                nextLaneIndex = index;
+                return e;
+            }
+        }
+
+        return null;
+    }
+
+    public E remove()
+    {
+        final E e = poll();
+        if (null == e)
+        {
+            throw new NoSuchElementException("Queue is empty");
+        }
+
+        return e;
+    }
+
+    public E element()
+    {
+        final E e = peek();
+        if (null == e)
+        {
+            throw new NoSuchElementException("Queue is empty");
+        }
+
+        return e;
+    }
+
+    public E peek()
+    {
+        final OneToOneConcurrentArrayQueue3<E>[] lanes = this.lanes;
+        final int length = lanes.length;
+        int index = nextLaneIndex;
+
+        for (int i = 0; i < length; i++)
+        {
+            if (index >= length)
+            {
+                index = 0;
+            }
+
+            final E e = lanes[index++].peek();
+            if (null != e)
+            {
+                return e;
+            }
+        }
+
+        return null;
+    }
+
+    public int size()
+    {
+        int size = 0;
+        for (final OneToOneConcurrentArrayQueue3<E> lane : lanes)
+        {
+            size += lane.size();
+        }
+
+        return size;
+    }
+
+    public boolean isEmpty()
+    {
+        for (final OneToOneConcurrentArrayQueue3<E> lane : lanes)
+        {
+            if (!lane.isEmpty())
+            {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    public boolean contains(final Object o)
+    {
+        for (final OneToOneConcurrentArrayQueue3<E> lane : lanes)
+        {
+            if (lane.contains(o))
+            {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    public Iterator<E> iterator()
+    {
+        throw new UnsupportedOperationException();
+    }
+
+    public Object[] toArray()
+    {
+        throw new UnsupportedOperationException();
+    }
+
+    public <T> T[] toArray(final T[] a)
+    {
+        throw new UnsupportedOperationException();
+    }
+
+    public boolean remove(final Object o)
+    {
+        throw new UnsupportedOperationException();
+    }
+
+    public boolean containsAll(final Collection<?> c)
+    {
+        for (final Object o : c)
+        {
+            if (!contains(o))
+            {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    public boolean addAll(final Collection<? extends E> c)
+    {
+        for (final E e : c)
+        {
+            add(e);
+        }
+
+        return true;
+    }
+
+    public boolean removeAll(final Collection<?> c)
+    {
+        throw new UnsupportedOperationException();
+    }
+
+    public boolean retainAll(final Collection<?> c)
+    {
+        throw new UnsupportedOperationException();
+    }
+
+    public void clear()
+    {
+        Object value;
+        do
+        {
+            value = poll();
+        }
+        while (null != value);
+    }
+
+    /**
+     * Remove the lanes of producer threads which have terminated once the lanes have been drained, so the consumer
+     * no longer scans them and they no longer count towards maxLanes.
+     *
+     * @return the number of lanes removed.
+     */
+    public synchronized int reclaimLanes()
+    {
+        final OneToOneConcurrentArrayQueue3<E>[] oldLanes = lanes;
+        final OneToOneConcurrentArrayQueue3<E>[] newLanes = Arrays.copyOf(oldLanes, oldLanes.length);
+        final Thread[] newLaneOwners = new Thread[oldLanes.length];
+        int laneCount = 0;
+
+        for (int i = 0; i < oldLanes.length; i++)
+        {
+            if (laneOwners[i].isAlive() || !oldLanes[i].isEmpty())
+            {
+                newLanes[laneCount] = oldLanes[i];
+                newLaneOwners[laneCount] = laneOwners[i];
+                laneCount++;
+            }
+        }
+
+        if (laneCount < oldLanes.length)
+        {
+            laneOwners = Arrays.copyOf(newLaneOwners, laneCount);
+            lanes = Arrays.copyOf(newLanes, laneCount);
+        }
+
+        return oldLanes.length - laneCount;
+    }
+
+    private synchronized OneToOneConcurrentArrayQueue3<E> addLane()
+    {
+        final Thread owner = Thread.currentThread();
+        final OneToOneConcurrentArrayQueue3<E>[] oldLanes = lanes;
+        for (int i = 0; i < oldLanes.length; i++)
+        {
+            if (!laneOwners[i].isAlive() && oldLanes[i].isEmpty())
+            {
+                laneOwners[i] = owner;
+                return oldLanes[i];
+            }
+        }
+
+        if (oldLanes.length >= maxLanes)
+        {
+            throw new IllegalStateException("Maximum number of producer lanes exceeded: " + maxLanes);
+        }
+
+        final OneToOneConcurrentArrayQueue3<E> lane = new OneToOneConcurrentArrayQueue3<E>(laneCapacity);
+        final OneToOneConcurrentArrayQueue3<E>[] newLanes = Arrays.copyOf(oldLanes, oldLanes.length + 1);
+        newLanes[oldLanes.length] = lane;
+        laneOwners = Arrays.copyOf(laneOwners, oldLanes.length + 1);
+        laneOwners[oldLanes.length] = owner;
+        lanes = newLanes;
+
+        return lane;
+    }
+}
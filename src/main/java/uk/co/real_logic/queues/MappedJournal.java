@@ -0,0 +1,420 @@
+/*
+ * Copyright 2016 Real Logic Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.co.real_logic.queues;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static uk.co.real_logic.queues.OneToOneRingBuffer.ALIGNMENT;
+import static uk.co.real_logic.queues.OneToOneRingBuffer.HEADER_LENGTH;
+import static uk.co.real_logic.queues.OneToOneRingBuffer.LENGTH_OFFSET;
+import static uk.co.real_logic.queues.OneToOneRingBuffer.PADDING_MSG_TYPE_ID;
+import static uk.co.real_logic.queues.OneToOneRingBuffer.TYPE_OFFSET;
+import static uk.co.real_logic.queues.OneToOneRingBuffer.align;
+import static uk.co.real_logic.queues.UnsafeAccess.UNSAFE;
+
+/**
+ * Append-only log of messages held in a directory of memory-mapped segment files of equal length.
+ * <p>
+ * Records use the header of {@link OneToOneRingBuffer} and never span segments. When a record does not fit in the
+ * remainder of a segment a padding record fills it and the record goes at the start of the next segment. Positions
+ * are byte offsets from the start of the log and each segment file is named after the index of the segment.
+ * <p>
+ * A single thread appends. The length of each record is written last with an ordered store, and the position up to
+ * which the log is complete is published once the record is written, so that other threads can replay and flush
+ * while appending continues. On open the end of the log is found by scanning the last segment with a record for a
+ * zero length, passing over any empty segments which were mapped ahead of the appender.
+ * <p>
+ * Segments stay mapped only while needed. Once both the flushed position and the position of the replaying thread
+ * have moved past a segment it is released, to be unmapped when garbage collected, and is mapped again if an
+ * earlier position is replayed.
+ */
+public final class MappedJournal implements AutoCloseable
+{
+    public static final String SEGMENT_SUFFIX = ".log";
+
+    private static final long BYTE_ARRAY_OFFSET = UNSAFE.arrayBaseOffset(byte[].class);
+
+    private final File directory;
+    private final int segmentLength;
+    private final ConcurrentHashMap<Long, Segment> segmentByIndex = new ConcurrentHashMap<>();
+
+    private final PaddedAtomicLong appendPosition = new PaddedAtomicLong(0);
+    private final PaddedAtomicLong flushedPosition = new PaddedAtomicLong(0);
+    private final PaddedAtomicLong replaySegmentIndex = new PaddedAtomicLong(Long.MAX_VALUE);
+
+    private Segment currentSegment;
+    private long tailPosition;
+
+    private Segment replaySegment;
+
+    private Segment flushSegment;
+    private long preallocatedIndex;
+
+    /**
+     * Open a journal in a directory, creating it if necessary, and recover the position at which to append.
+     *
+     * @param directory     to hold the segment files.
+     * @param segmentLength in bytes which must be a positive multiple of {@link OneToOneRingBuffer#ALIGNMENT}.
+     * @return the opened journal.
+     * @throws IOException if the directory or segments cannot be created or mapped.
+     */
+    public static MappedJournal open(final File directory, final int segmentLength) throws IOException
+    {
+        if (segmentLength <= HEADER_LENGTH || 0 != (segmentLength & (ALIGNMENT - 1)))
+        {
+            throw new IllegalArgumentException("Segment length must be a positive multiple of 8: " + segmentLength);
+        }
+
+        if (!directory.isDirectory() && !directory.mkdirs())
+        {
+            throw new IOException("Cannot create directory: " + directory);
+        }
+
+        return new MappedJournal(directory, segmentLength);
+    }
+
+    private MappedJournal(final File directory, final int segmentLength) throws IOException
+    {
+        this.directory = directory;
+        this.segmentLength = segmentLength;
+
+        long lastIndex = 0;
+        final String[] fileNames = directory.list();
+        if (null != fileNames)
+        {
+            for (final String fileName : fileNames)
+            {
+                if (fileName.endsWith(SEGMENT_SUFFIX))
+                {
+                    final String index = fileName.substring(0, fileName.length() - SEGMENT_SUFFIX.length());
+                    lastIndex = Math.max(lastIndex, Long.parseLong(index));
+                }
+            }
+        }
+
+        currentSegment = mapSegment(lastIndex);
+        while (currentSegment.index > 0 && 0 == UNSAFE.getIntVolatile(null, currentSegment.address + LENGTH_OFFSET))
+        {
+            currentSegment = mapSegment(currentSegment.index - 1);
+        }
+
+        int offset = 0;
+        int recordLength;
+        while (offset < segmentLength &&
+            (recordLength = UNSAFE.getIntVolatile(null, currentSegment.address + offset + LENGTH_OFFSET)) > 0)
+        {
+            offset += align(recordLength, ALIGNMENT);
+        }
+
+        segmentByIndex.put(Long.valueOf(currentSegment.index), currentSegment);
+        tailPosition = currentSegment.basePosition + offset;
+        appendPosition.set(tailPosition);
+        flushedPosition.set(tailPosition);
+        flushSegment = currentSegment;
+        preallocatedIndex = currentSegment.index;
+    }
+
+    public int segmentLength()
+    {
+        return segmentLength;
+    }
+
+    public int maxMsgLength()
+    {
+        return segmentLength - HEADER_LENGTH;
+    }
+
+    /**
+     * Position up to which records are complete and may be replayed.
+     *
+     * @return position up to which records are complete.
+     */
+    public long position()
+    {
+        return appendPosition.get();
+    }
+
+    /**
+     * Position up to which records have been forced to storage by {@link #flush(long)}.
+     *
+     * @return position up to which records have been forced to storage.
+     */
+    public long flushedPosition()
+    {
+        return flushedPosition.get();
+    }
+
+    /**
+     * Append a message to the log. Only to be called from the appending thread.
+     *
+     * @param msgTypeId type of the message which must be greater than 0.
+     * @param src       buffer containing the message.
+     * @param index     in src at which the message begins.
+     * @param length    of the message in bytes.
+     * @return the position of the record which can be used to replay from it.
+     * @throws IllegalArgumentException if msgTypeId is not valid or length exceeds {@link #maxMsgLength()}.
+     * @throws UncheckedIOException     if the next segment cannot be mapped.
+     */
+    public long append(final int msgTypeId, final ByteBuffer src, final int index, final int length)
+    {
+        if (msgTypeId < 1)
+        {
+            throw new IllegalArgumentException("Message type id must be greater than 0: " + msgTypeId);
+        }
+
+        if (length > maxMsgLength())
+        {
+            throw new IllegalArgumentException("Message exceeds maxMsgLength of " + maxMsgLength() + ": " + length);
+        }
+
+        final int recordLength = length + HEADER_LENGTH;
+        final int alignedRecordLength = align(recordLength, ALIGNMENT);
+
+        long position = tailPosition;
+        int offset = (int)(position - currentSegment.basePosition);
+        if (offset + alignedRecordLength > segmentLength)
+        {
+            if (offset < segmentLength)
+            {
+                final long paddingAddress = currentSegment.address + offset;
+                UNSAFE.putInt(null, paddingAddress + TYPE_OFFSET, PADDING_MSG_TYPE_ID);
+                UNSAFE.putOrderedInt(null, paddingAddress + LENGTH_OFFSET, segmentLength - offset);
+            }
+
+            currentSegment = segment(currentSegment.index + 1);
+            position = currentSegment.basePosition;
+            offset = 0;
+        }
+
+        final long recordAddress = currentSegment.address + offset;
+        UNSAFE.putInt(null, recordAddress + TYPE_OFFSET, msgTypeId);
+        if (src.isDirect())
+        {
+            UNSAFE.copyMemory(UnsafeAccess.address(src) + index, recordAddress + HEADER_LENGTH, length);
+        }
+        else
+        {
+            UNSAFE.copyMemory(
+                src.array(), BYTE_ARRAY_OFFSET + src.arrayOffset() + index, null, recordAddress + HEADER_LENGTH, length);
+        }
+
+        UNSAFE.putOrderedInt(null, recordAddress + LENGTH_OFFSET, recordLength);
+
+        tailPosition = position + alignedRecordLength;
+        appendPosition.lazySet(tailPosition);
+
+        return position;
+    }
+
+    /**
+     * Replay complete records in order from a position returned by {@link #append(int, ByteBuffer, int, int)} or by
+     * a previous replay. May be called from one thread at a time while appending continues.
+     *
+     * @param fromPosition at which a record begins.
+     * @param handler      to be called for each message.
+     * @param limitCount   on the number of messages to be replayed.
+     * @return the position following the last record replayed from which to continue.
+     * @throws UncheckedIOException if a released segment cannot be mapped again.
+     */
+    public long replay(final long fromPosition, final MessageHandler handler, final int limitCount)
+    {
+        final long limitPosition = appendPosition.get();
+        long position = fromPosition;
+        int messagesRead = 0;
+
+        while (position < limitPosition && messagesRead < limitCount)
+        {
+            final long index = position / segmentLength;
+            final int offset = (int)(position - (index * segmentLength));
+            Segment segment = replaySegment;
+            if (null == segment || segment.index != index)
+            {
+                segment = segment(index);
+                replaySegment = segment;
+                replaySegmentIndex.lazySet(index);
+                releaseSegments();
+            }
+            final int recordLength = UNSAFE.getIntVolatile(null, segment.address + offset + LENGTH_OFFSET);
+            if (recordLength <= 0)
+            {
+                throw new IllegalStateException("No record at position: " + position);
+            }
+
+            final int msgTypeId = UNSAFE.getInt(null, segment.address + offset + TYPE_OFFSET);
+            position += align(recordLength, ALIGNMENT);
+
+            if (PADDING_MSG_TYPE_ID == msgTypeId)
+            {
+                continue;
+            }
+
+            messagesRead++;
+            handler.onMessage(msgTypeId, segment.buffer, offset + HEADER_LENGTH, recordLength - HEADER_LENGTH);
+        }
+
+        return position;
+    }
+
+    /**
+     * Force the segments holding records up to a position to storage. Only to be called from the thread which
+     * calls {@link #preallocate()}.
+     *
+     * @param toPosition up to which records are to be made durable, no greater than {@link #position()}.
+     */
+    public void flush(final long toPosition)
+    {
+        final long fromPosition = flushedPosition.get();
+        if (toPosition <= fromPosition)
+        {
+            return;
+        }
+
+        for (long index = fromPosition / segmentLength, last = (toPosition - 1) / segmentLength; index <= last; index++)
+        {
+            Segment segment = flushSegment;
+            if (segment.index != index)
+            {
+                segment = segment(index);
+                flushSegment = segment;
+            }
+
+            segment.buffer.force();
+        }
+
+        flushedPosition.lazySet(toPosition);
+        if (toPosition / segmentLength > fromPosition / segmentLength)
+        {
+            releaseSegments();
+        }
+    }
+
+    /**
+     * Create and map the segment following the one being appended to, if not already mapped, so that the appending
+     * thread does not pay for it when the current segment fills. Only to be called from the thread which calls
+     * {@link #flush(long)}.
+     *
+     * @return true if a segment was mapped.
+     * @throws UncheckedIOException if the segment cannot be created or mapped.
+     */
+    public boolean preallocate()
+    {
+        final long nextIndex = (appendPosition.get() / segmentLength) + 1;
+        if (nextIndex <= preallocatedIndex)
+        {
+            return false;
+        }
+
+        segment(nextIndex);
+        preallocatedIndex = nextIndex;
+
+        return true;
+    }
+
+    /**
+     * Number of segments currently mapped by the journal.
+     *
+     * @return number of segments currently mapped.
+     */
+    public int mappedSegmentCount()
+    {
+        return segmentByIndex.size();
+    }
+
+    /**
+     * Flush all appended records and release the mapped segments which are unmapped when garbage collected.
+     */
+    public void close()
+    {
+        flush(appendPosition.get());
+        segmentByIndex.clear();
+    }
+
+    private void releaseSegments()
+    {
+        final long lowestIndex = Math.min(flushedPosition.get() / segmentLength, replaySegmentIndex.get());
+        segmentByIndex.keySet().removeIf((index) -> index.longValue() < lowestIndex);
+    }
+
+    private Segment segment(final long index)
+    {
+        final Long key = Long.valueOf(index);
+        Segment segment = segmentByIndex.get(key);
+        if (null == segment)
+        {
+            try
+            {
+                segment = mapSegment(index);
+            }
+            catch (final IOException ex)
+            {
+                throw new UncheckedIOException(ex);
+            }
+
+            final Segment existingSegment = segmentByIndex.putIfAbsent(key, segment);
+            if (null != existingSegment)
+            {
+                segment = existingSegment;
+            }
+        }
+
+        return segment;
+    }
+
+    private Segment mapSegment(final long index) throws IOException
+    {
+        final File file = new File(directory, String.format("%020d%s", Long.valueOf(index), SEGMENT_SUFFIX));
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw"))
+        {
+            if (0 == raf.length())
+            {
+                raf.setLength(segmentLength);
+            }
+            else if (segmentLength != raf.length())
+            {
+                throw new IllegalStateException("Segment length " + raf.length() + " != " + segmentLength + ": " + file);
+            }
+
+            final MappedByteBuffer buffer = raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, segmentLength);
+
+            return new Segment(index, index * segmentLength, buffer);
+        }
+    }
+
+    static final class Segment
+    {
+        final long index;
+        final long basePosition;
+        final long address;
+        final MappedByteBuffer buffer;
+
+        Segment(final long index, final long basePosition, final MappedByteBuffer buffer)
+        {
+            this.index = index;
+            this.basePosition = basePosition;
+            this.buffer = buffer;
+            this.buffer.order(ByteOrder.nativeOrder());
+            address = UnsafeAccess.address(buffer);
+        }
+    }
+}
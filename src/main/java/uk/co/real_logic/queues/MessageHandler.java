@@ -0,0 +1,36 @@
+/*
+ * Copyright 2016 Real Logic Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.co.real_logic.queues;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Callback for messages read from a ring buffer.
+ */
+@FunctionalInterface
+public interface MessageHandler
+{
+    /**
+     * Called for each message read. The message is only valid for the duration of the callback and must be copied
+     * if it is to be retained.
+     *
+     * @param msgTypeId type of the message supplied by the writer.
+     * @param buffer    containing the message which should only be accessed with absolute get methods.
+     * @param index     at which the message begins in the buffer.
+     * @param length    of the message in bytes.
+     */
+    void onMessage(int msgTypeId, ByteBuffer buffer, int index, int length);
+}
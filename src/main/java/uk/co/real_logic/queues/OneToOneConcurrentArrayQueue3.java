@@ -19,31 +19,111 @@ import java.util.Collection;
 import java.util.Iterator;
 import java.util.NoSuchElementException;
 import java.util.Queue;
-import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
 
 public final class OneToOneConcurrentArrayQueue3<E>
     implements Queue<E>
 {
     private final int capacity;
     private final int mask;
+    private final boolean countersEnabled;
     private final E[] buffer;
 
-    private final AtomicLong tail = new PaddedAtomicLong(0);
-    private final AtomicLong head = new PaddedAtomicLong(0);
+    private final PaddedAtomicLong tail = new PaddedAtomicLong(0);
+    private final PaddedAtomicLong head = new PaddedAtomicLong(0);
 
-    public static class PaddedLong
+    abstract static class PaddedLongPadding1
     {
-        public long value = 0, p1, p2, p3, p4, p5, p6;
+        long p01, p02, p03, p04, p05, p06, p07, p08;
+    }
+
+    abstract static class PaddedLongValue extends PaddedLongPadding1
+    {
+        public long value = 0;
+    }
+
+    /**
+     * Plain long for a cache owned by a single thread, padded on both sides by the class hierarchy.
+     */
+    public static class PaddedLong extends PaddedLongValue
+    {
+        long p11, p12, p13, p14, p15, p16, p17, p18;
     }
 
     private final PaddedLong tailCache = new PaddedLong();
     private final PaddedLong headCache = new PaddedLong();
 
-    @SuppressWarnings("unchecked")
+    private final PaddedAtomicLong failedOffers = new PaddedAtomicLong(0);
+    private final PaddedAtomicLong headCacheRefreshes = new PaddedAtomicLong(0);
+    private final PaddedAtomicLong highWaterOccupancy = new PaddedAtomicLong(0);
+    private final PaddedAtomicLong emptyPolls = new PaddedAtomicLong(0);
+    private final PaddedAtomicLong tailCacheRefreshes = new PaddedAtomicLong(0);
+
+    /**
+     * Point in time view of the counters kept by a queue which are all zero unless counters were enabled at
+     * construction. Failed offers, empty polls and cache refreshes are counted on the paths where the head or tail
+     * cache has to be refreshed. Occupancy is sampled after each successful offer, which costs the producer a read of
+     * the head, so it is the highest occupancy seen by the producer.
+     */
+    public static final class CountersSnapshot
+    {
+        public final int capacity;
+        public final int size;
+        public final long failedOffers;
+        public final long emptyPolls;
+        public final long highWaterOccupancy;
+        public final long headCacheRefreshes;
+        public final long tailCacheRefreshes;
+
+        public CountersSnapshot(
+            final int capacity,
+            final int size,
+            final long failedOffers,
+            final long emptyPolls,
+            final long highWaterOccupancy,
+            final long headCacheRefreshes,
+            final long tailCacheRefreshes)
+        {
+            this.capacity = capacity;
+            this.size = size;
+            this.failedOffers = failedOffers;
+            this.emptyPolls = emptyPolls;
+            this.highWaterOccupancy = highWaterOccupancy;
+            this.headCacheRefreshes = headCacheRefreshes;
+            this.tailCacheRefreshes = tailCacheRefreshes;
+        }
+
+        public String toString()
+        {
+            return "CountersSnapshot{" +
+                "capacity=" + capacity +
+                ", size=" + size +
+                ", failedOffers=" + failedOffers +
+                ", emptyPolls=" + emptyPolls +
+                ", highWaterOccupancy=" + highWaterOccupancy +
+                ", headCacheRefreshes=" + headCacheRefreshes +
+                ", tailCacheRefreshes=" + tailCacheRefreshes +
+                '}';
+        }
+    }
+
     public OneToOneConcurrentArrayQueue3(final int capacity)
+    {
+        this(capacity, false);
+    }
+
+    /**
+     * Construct a queue, choosing whether to keep the counters returned by {@link #countersSnapshot()}.
+     *
+     * @param capacity        of the queue which will be rounded up to a power of two.
+     * @param countersEnabled true if the counters are to be kept, at some cost to the producer and consumer.
+     */
+    @SuppressWarnings("unchecked")
+    public OneToOneConcurrentArrayQueue3(final int capacity, final boolean countersEnabled)
     {
         this.capacity = findNextPositivePowerOfTwo(capacity);
         mask = this.capacity - 1;
+        this.countersEnabled = countersEnabled;
         buffer = (E[])new Object[this.capacity];
     }
 
@@ -73,9 +153,14 @@ public final class OneToOneConcurrentArrayQueue3<E>
         final long wrapPoint = currentTail - capacity;
         if (headCache.value <= wrapPoint)
         {
-            headCache.value = head.get();
+            refreshHeadCache();
             if (headCache.value <= wrapPoint)
             {
+                if (countersEnabled)
+                {
+                    increment(failedOffers);
+                }
+
                 return false;
             }
         }
@@ -83,6 +168,11 @@ public final class OneToOneConcurrentArrayQueue3<E>
         buffer[(int)currentTail & mask] = e;
         tail.lazySet(currentTail + 1);
 
+        if (countersEnabled)
+        {
+            sampleOccupancy(currentTail + 1);
+        }
+
         return true;
     }
 
@@ -91,9 +181,14 @@ public final class OneToOneConcurrentArrayQueue3<E>
         final long currentHead = head.get();
         if (currentHead >= tailCache.value)
         {
-            tailCache.value = tail.get();
+            refreshTailCache();
             if (currentHead >= tailCache.value)
             {
+                if (countersEnabled)
+                {
+                    increment(emptyPolls);
+                }
+
                 return null;
             }
         }
@@ -106,6 +201,167 @@ public final class OneToOneConcurrentArrayQueue3<E>
         return e;
     }
 
+    /**
+     * Offer a batch of elements, publishing the tail once for all that fit.
+     *
+     * @param elements to be offered.
+     * @param offset   in elements at which the batch begins.
+     * @param length   of the batch.
+     * @return the number of elements offered which may be less than length if the queue is near full.
+     * @throws NullPointerException if any element in the batch is null.
+     */
+    public int fill(final E[] elements, final int offset, final int length)
+    {
+        for (int i = offset, limit = offset + length; i < limit; i++)
+        {
+            if (null == elements[i])
+            {
+                throw new NullPointerException("Null is not a valid element");
+            }
+        }
+
+        final long currentTail = tail.get();
+        long available = headCache.value + capacity - currentTail;
+        if (available < length)
+        {
+            refreshHeadCache();
+            available = headCache.value + capacity - currentTail;
+        }
+
+        final int count = (int)Math.min(available, length);
+        if (countersEnabled && 0 == count && length > 0)
+        {
+            increment(failedOffers);
+        }
+
+        for (int i = 0; i < count; i++)
+        {
+            buffer[(int)(currentTail + i) & mask] = elements[offset + i];
+        }
+
+        if (count > 0)
+        {
+            tail.lazySet(currentTail + count);
+
+            if (countersEnabled)
+            {
+                sampleOccupancy(currentTail + count);
+            }
+        }
+
+        return count;
+    }
+
+    /**
+     * Drain up to limit elements that are available up to the cached tail, publishing the head once for the batch.
+     *
+     * @param elementHandler to be called for each element in turn.
+     * @param limit          on the number of elements to be drained.
+     * @return the number of elements drained.
+     */
+    public int drain(final Consumer<E> elementHandler, final int limit)
+    {
+        final long currentHead = head.get();
+        if (currentHead >= tailCache.value)
+        {
+            refreshTailCache();
+            if (currentHead >= tailCache.value)
+            {
+                if (countersEnabled)
+                {
+                    increment(emptyPolls);
+                }
+
+                return 0;
+            }
+        }
+
+        final int available = (int)Math.min(tailCache.value - currentHead, limit);
+        int count = 0;
+        try
+        {
+            while (count < available)
+            {
+                final int index = (int)(currentHead + count) & mask;
+                final E e = buffer[index];
+                buffer[index] = null;
+                count++;
+                elementHandler.accept(e);
+            }
+        }
+        finally
+        {
+            if (count > 0)
+            {
+                head.lazySet(currentHead + count);
+            }
+        }
+
+        return count;
+    }
+
+    /**
+     * Drain up to limit elements that are available up to the cached tail into a collection, publishing the head
+     * once for the batch.
+     *
+     * @param target into which the elements are added.
+     * @param limit  on the number of elements to be drained.
+     * @return the number of elements drained.
+     */
+    public int drainTo(final Collection<? super E> target, final int limit)
+    {
+        return drain(target::add, limit);
+    }
+
+    /**
+     * Take a snapshot of the counters which is safe to call from a thread other than the producer or consumer.
+     *
+     * @return a snapshot of the counters.
+     */
+    public CountersSnapshot countersSnapshot()
+    {
+        return new CountersSnapshot(
+            capacity,
+            size(),
+            failedOffers.get(),
+            emptyPolls.get(),
+            highWaterOccupancy.get(),
+            headCacheRefreshes.get(),
+            tailCacheRefreshes.get());
+    }
+
+    private void refreshHeadCache()
+    {
+        headCache.value = head.get();
+        if (countersEnabled)
+        {
+            increment(headCacheRefreshes);
+        }
+    }
+
+    private void refreshTailCache()
+    {
+        tailCache.value = tail.get();
+        if (countersEnabled)
+        {
+            increment(tailCacheRefreshes);
+        }
+    }
+
+    private void sampleOccupancy(final long newTail)
+    {
+        final long occupancy = newTail - head.get();
+        if (occupancy > highWaterOccupancy.get())
+        {
+            highWaterOccupancy.lazySet(occupancy);
+        }
+    }
+
+    private static void increment(final PaddedAtomicLong counter)
+    {
+        counter.lazySet(counter.get() + 1);
+    }
+
     public E remove()
     {
         final E e = poll();
@@ -0,0 +1,129 @@
+/*
+ * Copyright 2016 Real Logic Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.co.real_logic.queues;
+
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.Queue;
+
+/**
+ * Java 8 version of the one producer to one consumer queue which delegates to {@link OneToOneConcurrentArrayQueue3}.
+ * <p>
+ * On Java 9 and later the multi-release jar replaces this class with a version which keeps head and tail as plain
+ * padded fields accessed via VarHandles, removing the indirection through separate {@link PaddedAtomicLong} objects.
+ *
+ * @param <E> type of the elements stored in the queue.
+ */
+public final class OneToOneConcurrentArrayQueue4<E>
+    implements Queue<E>
+{
+    private final OneToOneConcurrentArrayQueue3<E> delegate;
+
+    public OneToOneConcurrentArrayQueue4(final int capacity)
+    {
+        delegate = new OneToOneConcurrentArrayQueue3<E>(capacity);
+    }
+
+    public boolean add(final E e)
+    {
+        return delegate.add(e);
+    }
+
+    public boolean offer(final E e)
+    {
+        return delegate.offer(e);
+    }
+
+    public E poll()
+    {
+        return delegate.poll();
+    }
+
+    public E remove()
+    {
+        return delegate.remove();
+    }
+
+    public E element()
+    {
+        return delegate.element();
+    }
+
+    public E peek()
+    {
+        return delegate.peek();
+    }
+
+    public int size()
+    {
+        return delegate.size();
+    }
+
+    public boolean isEmpty()
+    {
+        return delegate.isEmpty();
+    }
+
+    public boolean contains(final Object o)
+    {
+        return delegate.contains(o);
+    }
+
+    public Iterator<E> iterator()
+    {
+        return delegate.iterator();
+    }
+
+    public Object[] toArray()
+    {
+        return delegate.toArray();
+    }
+
+    public <T> T[] toArray(final T[] a)
+    {
+        return delegate.toArray(a);
+    }
+
+    public boolean remove(final Object o)
+    {
+        return delegate.remove(o);
+    }
+
+    public boolean containsAll(final Collection<?> c)
+    {
+        return delegate.containsAll(c);
+    }
+
+    public boolean addAll(final Collection<? extends E> c)
+    {
+        return delegate.addAll(c);
+    }
+
+    public boolean removeAll(final Collection<?> c)
+    {
+        return delegate.removeAll(c);
+    }
+
+    public boolean retainAll(final Collection<?> c)
+    {
+        return delegate.retainAll(c);
+    }
+
+    public void clear()
+    {
+        delegate.clear();
+    }
+}
@@ -0,0 +1,299 @@
+/*
+ * Copyright 2016 Real Logic Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.co.real_logic.queues;
+
+import uk.co.real_logic.queues.OneToOneConcurrentArrayQueue3.PaddedLong;
+
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Queue;
+
+import static uk.co.real_logic.queues.OneToOneConcurrentArrayQueue3.findNextPositivePowerOfTwo;
+
+/**
+ * Unbounded one producer to one consumer queue built from a linked list of power of two sized array chunks.
+ * <p>
+ * Within a chunk offer and poll follow {@link OneToOneConcurrentArrayQueue3}. When the producer fills a chunk it
+ * links in a new one and when the consumer empties a chunk it returns it to a pool for the producer to reuse, so
+ * once the queue has warmed up to its working size no further chunks are allocated. The link to the next chunk is
+ * written before the tail is published, so the consumer always finds it when the tail says there is an element.
+ *
+ * @param <E> type of the elements stored in the queue.
+ */
+public final class OneToOneConcurrentChunkedArrayQueue<E>
+    implements Queue<E>
+{
+    private final int chunkSize;
+    private final int chunkMask;
+    private final OneToOneConcurrentArrayQueue3<Chunk<E>> chunkPool;
+
+    private final PaddedAtomicLong tail = new PaddedAtomicLong(0);
+    private final PaddedAtomicLong head = new PaddedAtomicLong(0);
+
+    private final PaddedLong tailCache = new PaddedLong();
+    private final PaddedLong chunksAllocated = new PaddedLong();
+
+    private Chunk<E> producerChunk;
+    private Chunk<E> consumerChunk;
+
+    static final class Chunk<E>
+    {
+        final E[] buffer;
+        Chunk<E> next;
+
+        @SuppressWarnings("unchecked")
+        Chunk(final int chunkSize)
+        {
+            buffer = (E[])new Object[chunkSize];
+        }
+    }
+
+    /**
+     * Construct an unbounded queue.
+     *
+     * @param chunkSize       number of elements in each chunk which will be rounded up to a power of two.
+     * @param maxPooledChunks number of emptied chunks retained for reuse by the producer.
+     */
+    public OneToOneConcurrentChunkedArrayQueue(final int chunkSize, final int maxPooledChunks)
+    {
+        this.chunkSize = findNextPositivePowerOfTwo(chunkSize);
+        chunkMask = this.chunkSize - 1;
+        chunkPool = new OneToOneConcurrentArrayQueue3<Chunk<E>>(maxPooledChunks);
+
+        producerChunk = new Chunk<E>(this.chunkSize);
+        consumerChunk = producerChunk;
+        chunksAllocated.value = 1;
+    }
+
+    /**
+     * The number of chunks the producer has allocated, which stops growing once the queue has warmed up.
+     *
+     * @return the number of chunks allocated.
+     */
+    public long chunksAllocated()
+    {
+        return chunksAllocated.value;
+    }
+
+    public boolean add(final E e)
+    {
+        return offer(e);
+    }
+
+    public boolean offer(final E e)
+    {
+        if (null == e)
+        {
+            throw new NullPointerException("Null is not a valid element");
+        }
+
+        final long currentTail = tail.get();
+        final int offset = (int)currentTail & chunkMask;
+        if (0 == offset && 0 != currentTail)
+        {
+            final Chunk<E> nextChunk = nextProducerChunk();
+            producerChunk.next = nextChunk;
+            producerChunk = nextChunk;
+        }
+
+        producerChunk.buffer[offset] = e;
+        tail.lazySet(currentTail + 1);
+
+        return true;
+    }
+
+    public E poll()
+    {
+        final long currentHead = head.get();
+        if (currentHead >= tailCache.value)
+        {
+            tailCache.value = tail.get();
+            if (currentHead >= tailCache.value)
+            {
+                return null;
+            }
+        }
+
+        final int offset = (int)currentHead & chunkMask;
+        if (0 == offset && 0 != currentHead)
+        {
+            advanceConsumerChunk();
+        }
+
+        final E[] buffer = consumerChunk.buffer;
+        final E e = buffer[offset];
+        buffer[offset] = null;
+        head.lazySet(currentHead + 1);
+
+        return e;
+    }
+
+    public E remove()
+    {
+        final E e = poll();
+        if (null == e)
+        {
+            throw new NoSuchElementException("Queue is empty");
+        }
+
+        return e;
+    }
+
+    public E element()
+    {
+        final E e = peek();
+        if (null == e)
+        {
+            throw new NoSuchElementException("Queue is empty");
+        }
+
+        return e;
+    }
+
+    public E peek()
+    {
+        final long currentHead = head.get();
+        if (currentHead >= tail.get())
+        {
+            return null;
+        }
+
+        final int offset = (int)currentHead & chunkMask;
+        final Chunk<E> chunk = 0 == offset && 0 != currentHead ? consumerChunk.next : consumerChunk;
+
+        return chunk.buffer[offset];
+    }
+
+    public int size()
+    {
+        return (int)Math.min(tail.get() - head.get(), Integer.MAX_VALUE);
+    }
+
+    public boolean isEmpty()
+    {
+        return tail.get() == head.get();
+    }
+
+    public boolean contains(final Object o)
+    {
+        if (null == o)
+        {
+            return false;
+        }
+
+        Chunk<E> chunk = consumerChunk;
+        for (long i = head.get(), limit = tail.get(); i < limit; i++)
+        {
+            final int offset = (int)i & chunkMask;
+            if (0 == offset && 0 != i)
+            {
+                chunk = chunk.next;
+            }
+
+            if (o.equals(chunk.buffer[offset]))
+            {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    public Iterator<E> iterator()
+    {
+        throw new UnsupportedOperationException();
+    }
+
+    public Object[] toArray()
+    {
+        throw new UnsupportedOperationException();
+    }
+
+    public <T> T[] toArray(final T[] a)
+    {
+        throw new UnsupportedOperationException();
+    }
+
+    public boolean remove(final Object o)
+    {
+        throw new UnsupportedOperationException();
+    }
+
+    public boolean containsAll(final Collection<?> c)
+    {
+        for (final Object o : c)
+        {
+            if (!contains(o))
+            {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    public boolean addAll(final Collection<? extends E> c)
+    {
+        for (final E e : c)
+        {
+            add(e);
+        }
+
+        return true;
+    }
+
+    public boolean removeAll(final Collection<?> c)
+    {
+        throw new UnsupportedOperationException();
+    }
+
+    public boolean retainAll(final Collection<?> c)
+    {
+        throw new UnsupportedOperationException();
+    }
+
+    public void clear()
+    {
+        Object value;
+        do
+        {
+            value = poll();
+        }
+        while (null != value);
+    }
+
+    private Chunk<E> nextProducerChunk()
+    {
+        final Chunk<E> pooledChunk = chunkPool.poll();
+        if (null != pooledChunk)
+        {
+            return pooledChunk;
+        }
+
+        chunksAllocated.value++;
+
+        return new Chunk<E>(chunkSize);
+    }
+
+    private void advanceConsumerChunk()
+    {
+        final Chunk<E> emptyChunk = consumerChunk;
+        consumerChunk = emptyChunk.next;
+        emptyChunk.next = null;
+        chunkPool.offer(emptyChunk);
+    }
+}
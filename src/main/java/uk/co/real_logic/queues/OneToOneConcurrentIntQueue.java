@@ -0,0 +1,131 @@
+/*
+ * Copyright 2016 Real Logic Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.co.real_logic.queues;
+
+import uk.co.real_logic.queues.OneToOneConcurrentArrayQueue3.PaddedLong;
+
+import static uk.co.real_logic.queues.OneToOneConcurrentArrayQueue3.findNextPositivePowerOfTwo;
+
+/**
+ * One producer to one consumer queue of primitive int values following the design of
+ * {@link OneToOneConcurrentArrayQueue3} so that no boxing takes place.
+ * <p>
+ * Emptiness is determined by comparing head and tail counters. When the queue is empty {@link #pollInt()} returns
+ * the nullValue given at construction, which therefore cannot be offered as an element.
+ */
+public final class OneToOneConcurrentIntQueue
+{
+    private final int capacity;
+    private final int mask;
+    private final int nullValue;
+    private final int[] buffer;
+
+    private final PaddedAtomicLong tail = new PaddedAtomicLong(0);
+    private final PaddedAtomicLong head = new PaddedAtomicLong(0);
+
+    private final PaddedLong tailCache = new PaddedLong();
+    private final PaddedLong headCache = new PaddedLong();
+
+    public OneToOneConcurrentIntQueue(final int capacity, final int nullValue)
+    {
+        this.capacity = findNextPositivePowerOfTwo(capacity);
+        this.nullValue = nullValue;
+        mask = this.capacity - 1;
+        buffer = new int[this.capacity];
+    }
+
+    public int nullValue()
+    {
+        return nullValue;
+    }
+
+    public int capacity()
+    {
+        return capacity;
+    }
+
+    public boolean offerInt(final int value)
+    {
+        if (nullValue == value)
+        {
+            throw new IllegalArgumentException("Cannot offer the nullValue: " + value);
+        }
+
+        final long currentTail = tail.get();
+        final long wrapPoint = currentTail - capacity;
+        if (headCache.value <= wrapPoint)
+        {
+            headCache.value = head.get();
+            if (headCache.value <= wrapPoint)
+            {
+                return false;
+            }
+        }
+
+        buffer[(int)currentTail & mask] = value;
+        tail.lazySet(currentTail + 1);
+
+        return true;
+    }
+
+    public int pollInt()
+    {
+        final long currentHead = head.get();
+        if (currentHead >= tailCache.value)
+        {
+            tailCache.value = tail.get();
+            if (currentHead >= tailCache.value)
+            {
+                return nullValue;
+            }
+        }
+
+        final int value = buffer[(int)currentHead & mask];
+        head.lazySet(currentHead + 1);
+
+        return value;
+    }
+
+    public int peekInt()
+    {
+        final long currentHead = head.get();
+        if (currentHead >= tail.get())
+        {
+            return nullValue;
+        }
+
+        return buffer[(int)currentHead & mask];
+    }
+
+    public int size()
+    {
+        return (int)(tail.get() - head.get());
+    }
+
+    public boolean isEmpty()
+    {
+        return tail.get() == head.get();
+    }
+
+    /**
+     * Discard the elements in the queue by moving the head up to the tail. Only to be called from the consumer
+     * thread, as for {@link #pollInt()}, since the head is owned by the consumer.
+     */
+    public void clear()
+    {
+        head.lazySet(tail.get());
+    }
+}
@@ -0,0 +1,283 @@
+/*
+ * Copyright 2016 Real Logic Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.co.real_logic.queues;
+
+import uk.co.real_logic.queues.OneToOneConcurrentArrayQueue3.PaddedLong;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import static uk.co.real_logic.queues.OneToOneConcurrentArrayQueue3.findNextPositivePowerOfTwo;
+
+/**
+ * One producer to one consumer last value queue keyed by a primitive long. Offering a value for a key which is still
+ * pending replaces the value in place so a lagging consumer only sees the latest value for each key, while keys are
+ * drained in the order they first arrived.
+ * <p>
+ * The producer keeps an open addressed index from key to the sequence of its slot. The consumer takes a value by
+ * swapping the slot to null so the producer replaces a pending value with a compare and set that fails once the
+ * consumer has taken it, in which case the value is appended as a new entry.
+ *
+ * @param <V> type of the values stored in the queue.
+ */
+public final class OneToOneConflatingQueue<V>
+{
+    private final int capacity;
+    private final int mask;
+    private final long[] keys;
+    private final AtomicReferenceArray<V> values;
+    private final KeyIndex keyIndex;
+
+    private final PaddedAtomicLong tail = new PaddedAtomicLong(0);
+    private final PaddedAtomicLong head = new PaddedAtomicLong(0);
+
+    private final PaddedLong tailCache = new PaddedLong();
+    private final PaddedLong headCache = new PaddedLong();
+    private final PaddedLong conflatedCount = new PaddedLong();
+
+    public OneToOneConflatingQueue(final int capacity)
+    {
+        this.capacity = findNextPositivePowerOfTwo(capacity);
+        mask = this.capacity - 1;
+        keys = new long[this.capacity];
+        values = new AtomicReferenceArray<V>(this.capacity);
+        keyIndex = new KeyIndex(this.capacity * 2);
+    }
+
+    public int capacity()
+    {
+        return capacity;
+    }
+
+    /**
+     * Offer a value for a key, replacing the value in place if the key is still pending.
+     *
+     * @param key   for the value.
+     * @param value to be offered.
+     * @return true if the value was replaced or appended, false if a new entry was needed and the queue is full.
+     */
+    public boolean offer(final long key, final V value)
+    {
+        if (null == value)
+        {
+            throw new NullPointerException("Null is not a valid element");
+        }
+
+        final long pendingSequence = keyIndex.get(key);
+        if (KeyIndex.MISSING != pendingSequence)
+        {
+            final int index = (int)pendingSequence & mask;
+            final V pendingValue = values.get(index);
+            if (null != pendingValue && values.compareAndSet(index, pendingValue, value))
+            {
+                conflatedCount.value++;
+                return true;
+            }
+        }
+
+        final long currentTail = tail.get();
+        final long wrapPoint = currentTail - capacity;
+        if (headCache.value <= wrapPoint)
+        {
+            headCache.value = head.get();
+            if (headCache.value <= wrapPoint)
+            {
+                return false;
+            }
+        }
+
+        final int index = (int)currentTail & mask;
+        if (wrapPoint >= 0)
+        {
+            keyIndex.remove(keys[index], wrapPoint);
+        }
+
+        keys[index] = key;
+        values.lazySet(index, value);
+        keyIndex.put(key, currentTail);
+        tail.lazySet(currentTail + 1);
+
+        return true;
+    }
+
+    /**
+     * Drain up to limit pending keys, each with its latest value, in order of first arrival.
+     *
+     * @param handler to be called for each key and value in turn.
+     * @param limit   on the number of keys to be drained.
+     * @return the number of keys drained.
+     */
+    public int drain(final ConflatedValueHandler<V> handler, final int limit)
+    {
+        final long currentHead = head.get();
+        if (currentHead >= tailCache.value)
+        {
+            tailCache.value = tail.get();
+            if (currentHead >= tailCache.value)
+            {
+                return 0;
+            }
+        }
+
+        final int available = (int)Math.min(tailCache.value - currentHead, limit);
+        int count = 0;
+        try
+        {
+            while (count < available)
+            {
+                final int index = (int)(currentHead + count) & mask;
+                final long key = keys[index];
+                final V value = values.getAndSet(index, null);
+                count++;
+                handler.onValue(key, value);
+            }
+        }
+        finally
+        {
+            if (count > 0)
+            {
+                head.lazySet(currentHead + count);
+            }
+        }
+
+        return count;
+    }
+
+    /**
+     * The number of offers which replaced a pending value. Only to be read from the producer thread.
+     *
+     * @return the number of offers which replaced a pending value.
+     */
+    public long conflatedCount()
+    {
+        return conflatedCount.value;
+    }
+
+    public int size()
+    {
+        return (int)(tail.get() - head.get());
+    }
+
+    public boolean isEmpty()
+    {
+        return tail.get() == head.get();
+    }
+
+    /**
+     * Open addressed map from key to the sequence of its most recent slot with linear probing. Only accessed by
+     * the producer. An entry is removed when its slot is reused so the map never holds more than capacity entries.
+     */
+    static final class KeyIndex
+    {
+        static final long MISSING = -1;
+
+        private final int mask;
+        private final long[] keys;
+        private final long[] sequences;
+
+        KeyIndex(final int capacity)
+        {
+            mask = capacity - 1;
+            keys = new long[capacity];
+            sequences = new long[capacity];
+            Arrays.fill(sequences, MISSING);
+        }
+
+        long get(final long key)
+        {
+            int index = hash(key);
+            long sequence;
+            while (MISSING != (sequence = sequences[index]))
+            {
+                if (key == keys[index])
+                {
+                    return sequence;
+                }
+
+                index = (index + 1) & mask;
+            }
+
+            return MISSING;
+        }
+
+        void put(final long key, final long sequence)
+        {
+            int index = hash(key);
+            while (MISSING != sequences[index])
+            {
+                if (key == keys[index])
+                {
+                    break;
+                }
+
+                index = (index + 1) & mask;
+            }
+
+            keys[index] = key;
+            sequences[index] = sequence;
+        }
+
+        void remove(final long key, final long sequence)
+        {
+            int index = hash(key);
+            while (MISSING != sequences[index])
+            {
+                if (key == keys[index])
+                {
+                    if (sequence == sequences[index])
+                    {
+                        sequences[index] = MISSING;
+                        compactChain(index);
+                    }
+
+                    return;
+                }
+
+                index = (index + 1) & mask;
+            }
+        }
+
+        private void compactChain(final int removedIndex)
+        {
+            int deleteIndex = removedIndex;
+            int index = removedIndex;
+            while (true)
+            {
+                index = (index + 1) & mask;
+                if (MISSING == sequences[index])
+                {
+                    return;
+                }
+
+                final int hash = hash(keys[index]);
+                if ((index < hash && (hash <= deleteIndex || deleteIndex <= index)) ||
+                    (hash <= deleteIndex && deleteIndex <= index))
+                {
+                    keys[deleteIndex] = keys[index];
+                    sequences[deleteIndex] = sequences[index];
+                    sequences[index] = MISSING;
+                    deleteIndex = index;
+                }
+            }
+        }
+
+        private int hash(final long key)
+        {
+            final long hash = key * 0x9E3779B97F4A7C15L;
+            return (int)(hash ^ (hash >>> 32)) & mask;
+        }
+    }
+}
@@ -0,0 +1,158 @@
+/*
+ * Copyright 2016 Real Logic Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.co.real_logic.queues;
+
+import uk.co.real_logic.intrinsics.ComponentFactory;
+import uk.co.real_logic.intrinsics.StructuredArray;
+import uk.co.real_logic.queues.OneToOneConcurrentArrayQueue3.PaddedLong;
+
+import static uk.co.real_logic.queues.OneToOneConcurrentArrayQueue3.findNextPositivePowerOfTwo;
+
+/**
+ * One producer to one consumer ring of events preallocated in a {@link StructuredArray} so the message path is free
+ * of garbage.
+ * <p>
+ * The producer {@link #claim()}s a sequence, mutates the entry returned by {@link #get(long)} in place and then
+ * {@link #publish(long)}es it. The consumer reads entries in place via {@link #read(EventHandler, int)}. Sequencing
+ * follows {@link OneToOneConcurrentArrayQueue3} with padded counters and cached copies.
+ *
+ * @param <T> type of the preallocated event.
+ */
+public final class OneToOneEventRing<T>
+{
+    public static final long FULL = -1;
+
+    private final int capacity;
+    private final int mask;
+    private final StructuredArray<T> entries;
+
+    private final PaddedAtomicLong tail = new PaddedAtomicLong(0);
+    private final PaddedAtomicLong head = new PaddedAtomicLong(0);
+
+    private final PaddedLong tailCache = new PaddedLong();
+    private final PaddedLong headCache = new PaddedLong();
+    private final PaddedLong claimSequence = new PaddedLong();
+
+    /**
+     * Construct a ring with entries created by a factory.
+     *
+     * @param capacity         of the ring which will be rounded up to a power of two.
+     * @param componentClass   of the events.
+     * @param componentFactory to create each event.
+     */
+    public OneToOneEventRing(
+        final int capacity, final Class<T> componentClass, final ComponentFactory<T> componentFactory)
+    {
+        this.capacity = findNextPositivePowerOfTwo(capacity);
+        mask = this.capacity - 1;
+        entries = StructuredArray.newInstance(this.capacity, componentClass, componentFactory);
+    }
+
+    public int capacity()
+    {
+        return capacity;
+    }
+
+    /**
+     * Claim the next sequence for the producer to fill. Claimed sequences must be published in order.
+     *
+     * @return the claimed sequence or {@link #FULL} if the ring has no free entry.
+     */
+    public long claim()
+    {
+        final long sequence = claimSequence.value;
+        final long wrapPoint = sequence - capacity;
+        if (headCache.value <= wrapPoint)
+        {
+            headCache.value = head.get();
+            if (headCache.value <= wrapPoint)
+            {
+                return FULL;
+            }
+        }
+
+        claimSequence.value = sequence + 1;
+
+        return sequence;
+    }
+
+    /**
+     * Get the entry for a sequence to be mutated in place by the producer after claiming it.
+     *
+     * @param sequence previously claimed.
+     * @return the entry for the sequence.
+     */
+    public T get(final long sequence)
+    {
+        return entries.get(sequence & mask);
+    }
+
+    /**
+     * Publish a claimed sequence, and any claimed before it, making the entries visible to the consumer.
+     *
+     * @param sequence previously claimed and filled.
+     */
+    public void publish(final long sequence)
+    {
+        tail.lazySet(sequence + 1);
+    }
+
+    /**
+     * Read published events in place up to the cached tail, publishing the head once for the batch.
+     *
+     * @param handler to be called for each event.
+     * @param limit   on the number of events to be read.
+     * @return the number of events read.
+     */
+    public int read(final EventHandler<T> handler, final int limit)
+    {
+        final long currentHead = head.get();
+        if (currentHead >= tailCache.value)
+        {
+            tailCache.value = tail.get();
+            if (currentHead >= tailCache.value)
+            {
+                return 0;
+            }
+        }
+
+        final int available = (int)Math.min(tailCache.value - currentHead, limit);
+        int count = 0;
+        try
+        {
+            while (count < available)
+            {
+                final long sequence = currentHead + count;
+                count++;
+                handler.onEvent(entries.get(sequence & mask), sequence);
+            }
+        }
+        finally
+        {
+            if (count > 0)
+            {
+                head.lazySet(currentHead + count);
+            }
+        }
+
+        return count;
+    }
+
+    public int size()
+    {
+        return (int)(tail.get() - head.get());
+    }
+}
@@ -0,0 +1,79 @@
+/*
+ * Copyright 2016 Real Logic Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.co.real_logic.queues;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * One producer to one consumer ring buffer of variable length messages held in a {@link ByteBuffer}.
+ * <p>
+ * Each record is a header of length and message type followed by the message, aligned to {@link #ALIGNMENT}.
+ * When a record does not fit before the end of the buffer a padding record fills the remainder and the message
+ * is written at the start. Head and tail are byte positions kept in padded counters with cached copies in the
+ * style of {@link OneToOneConcurrentArrayQueue3} so the buffer itself needs no ordered stores.
+ * <p>
+ * The records are handled by {@link AbstractOneToOneRingBuffer} which is shared with {@link IpcOneToOneRingBuffer}.
+ */
+public final class OneToOneRingBuffer extends AbstractOneToOneRingBuffer
+{
+    public static final int PADDING_MSG_TYPE_ID = -1;
+    public static final int ALIGNMENT = 8;
+    public static final int LENGTH_OFFSET = 0;
+    public static final int TYPE_OFFSET = 4;
+    public static final int HEADER_LENGTH = 8;
+
+    /**
+     * Construct a ring buffer over a newly allocated direct {@link ByteBuffer}.
+     *
+     * @param capacity in bytes which must be a power of two.
+     */
+    public OneToOneRingBuffer(final int capacity)
+    {
+        this(ByteBuffer.allocateDirect(capacity));
+    }
+
+    /**
+     * Construct a ring buffer over an existing {@link ByteBuffer} which will be used from index 0 to its capacity.
+     *
+     * @param buffer whose capacity must be a power of two.
+     */
+    public OneToOneRingBuffer(final ByteBuffer buffer)
+    {
+        this(buffer.duplicate().order(ByteOrder.nativeOrder()), new PaddedAtomicLong(0), new PaddedAtomicLong(0));
+    }
+
+    private OneToOneRingBuffer(final ByteBuffer buffer, final PaddedAtomicLong tail, final PaddedAtomicLong head)
+    {
+        super(buffer, checkCapacity(buffer.capacity()), tail, PaddedAtomicLong.VALUE_OFFSET, head,
+              PaddedAtomicLong.VALUE_OFFSET);
+    }
+
+    public static int align(final int value, final int alignment)
+    {
+        return (value + (alignment - 1)) & ~(alignment - 1);
+    }
+
+    private static int checkCapacity(final int capacity)
+    {
+        if (Integer.bitCount(capacity) != 1 || capacity < HEADER_LENGTH)
+        {
+            throw new IllegalArgumentException("Capacity must be a positive power of two: " + capacity);
+        }
+
+        return capacity;
+    }
+}
@@ -15,18 +15,108 @@
  */
 package uk.co.real_logic.queues;
 
-import java.util.concurrent.atomic.AtomicLong;
+import static uk.co.real_logic.queues.UnsafeAccess.UNSAFE;
 
-public class PaddedAtomicLong extends AtomicLong
+abstract class PaddedAtomicLongPadding1
 {
+    long p01, p02, p03, p04, p05, p06, p07, p08;
+}
+
+abstract class PaddedAtomicLongValue extends PaddedAtomicLongPadding1
+{
+    volatile long value;
+}
+
+abstract class PaddedAtomicLongPadding2 extends PaddedAtomicLongValue
+{
+    long p11, p12, p13, p14, p15, p16, p17, p18;
+}
+
+/**
+ * Atomic long with the value padded on both sides by the class hierarchy so it cannot share a cache line with
+ * another hot field. The JVM lays out superclass fields before subclass fields so, unlike trailing padding fields
+ * in one class, the padding cannot be reordered or packed away from the value.
+ * <p>
+ * This does not extend {@link java.util.concurrent.atomic.AtomicLong}, as the value must sit between the padding
+ * classes, but it has the same names and semantics for the AtomicLong methods it provides.
+ */
+public class PaddedAtomicLong extends PaddedAtomicLongPadding2
+{
+    static final long VALUE_OFFSET;
+
+    static
+    {
+        try
+        {
+            VALUE_OFFSET = UNSAFE.objectFieldOffset(PaddedAtomicLongValue.class.getDeclaredField("value"));
+        }
+        catch (final Exception ex)
+        {
+            throw new RuntimeException(ex);
+        }
+    }
+
     public PaddedAtomicLong()
     {
     }
 
     public PaddedAtomicLong(final long initialValue)
     {
-        super(initialValue);
+        value = initialValue;
+    }
+
+    public long get()
+    {
+        return value;
+    }
+
+    public void set(final long newValue)
+    {
+        value = newValue;
+    }
+
+    public void lazySet(final long newValue)
+    {
+        UNSAFE.putOrderedLong(this, VALUE_OFFSET, newValue);
     }
 
-    public volatile long p1, p2, p3, p4, p5, p6 = 7;
+    public boolean compareAndSet(final long expectedValue, final long newValue)
+    {
+        return UNSAFE.compareAndSwapLong(this, VALUE_OFFSET, expectedValue, newValue);
+    }
+
+    public long getAndSet(final long newValue)
+    {
+        return UNSAFE.getAndSetLong(this, VALUE_OFFSET, newValue);
+    }
+
+    public long getAndAdd(final long delta)
+    {
+        return UNSAFE.getAndAddLong(this, VALUE_OFFSET, delta);
+    }
+
+    public long addAndGet(final long delta)
+    {
+        return UNSAFE.getAndAddLong(this, VALUE_OFFSET, delta) + delta;
+    }
+
+    public long getAndIncrement()
+    {
+        return UNSAFE.getAndAddLong(this, VALUE_OFFSET, 1);
+    }
+
+    public long incrementAndGet()
+    {
+        return UNSAFE.getAndAddLong(this, VALUE_OFFSET, 1) + 1;
+    }
+
+    public long decrementAndGet()
+    {
+        return UNSAFE.getAndAddLong(this, VALUE_OFFSET, -1) - 1;
+    }
+
+    public String toString()
+    {
+        return Long.toString(value);
+    }
 }
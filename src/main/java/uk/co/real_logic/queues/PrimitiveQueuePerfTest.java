@@ -0,0 +1,182 @@
+/*
+ * Copyright 2016 Real Logic Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.co.real_logic.queues;
+
+import static uk.co.real_logic.queues.AllocationMeter.allocatedBytes;
+
+/**
+ * Throughput test for the primitive queues which also reports the bytes allocated per operation on the
+ * producer and consumer threads to show the transfer is free of boxing.
+ * <p>
+ * Usage: java uk.co.real_logic.queues.PrimitiveQueuePerfTest &lt;1 = long queue | 2 = int queue&gt;
+ */
+public class PrimitiveQueuePerfTest
+{
+    public static final int QUEUE_CAPACITY = 32 * 1024;
+    public static final int REPETITIONS = 50 * 1000 * 1000;
+    public static final int NULL_VALUE = -1;
+
+    public static void main(final String[] args) throws Exception
+    {
+        final int option = Integer.parseInt(args[0]);
+        if (option != 1 && option != 2)
+        {
+            throw new IllegalArgumentException("Invalid option: " + option);
+        }
+
+        for (int i = 0; i < 5; i++)
+        {
+            System.gc();
+            if (1 == option)
+            {
+                longPerformanceRun(i, new OneToOneConcurrentLongQueue(QUEUE_CAPACITY, NULL_VALUE));
+            }
+            else
+            {
+                intPerformanceRun(i, new OneToOneConcurrentIntQueue(QUEUE_CAPACITY, NULL_VALUE));
+            }
+        }
+    }
+
+    private static void longPerformanceRun(final int runNumber, final OneToOneConcurrentLongQueue queue)
+        throws Exception
+    {
+        final LongProducer producer = new LongProducer(queue);
+        final Thread thread = new Thread(producer);
+        final long start = System.nanoTime();
+        final long startBytes = allocatedBytes();
+        thread.start();
+
+        long sum = 0;
+        int i = REPETITIONS;
+        do
+        {
+            long value;
+            while (NULL_VALUE == (value = queue.pollLong()))
+            {
+                Thread.yield();
+            }
+
+            sum += value;
+        }
+        while (0 != --i);
+
+        final long consumerBytes = allocatedBytes() - startBytes;
+        thread.join();
+
+        report(runNumber, queue.getClass().getSimpleName(), start, producer.allocatedBytes, consumerBytes, sum);
+    }
+
+    private static void intPerformanceRun(final int runNumber, final OneToOneConcurrentIntQueue queue)
+        throws Exception
+    {
+        final IntProducer producer = new IntProducer(queue);
+        final Thread thread = new Thread(producer);
+        final long start = System.nanoTime();
+        final long startBytes = allocatedBytes();
+        thread.start();
+
+        long sum = 0;
+        int i = REPETITIONS;
+        do
+        {
+            int value;
+            while (NULL_VALUE == (value = queue.pollInt()))
+            {
+                Thread.yield();
+            }
+
+            sum += value;
+        }
+        while (0 != --i);
+
+        final long consumerBytes = allocatedBytes() - startBytes;
+        thread.join();
+
+        report(runNumber, queue.getClass().getSimpleName(), start, producer.allocatedBytes, consumerBytes, sum);
+    }
+
+    private static void report(
+        final int runNumber,
+        final String name,
+        final long start,
+        final long producerBytes,
+        final long consumerBytes,
+        final long sum)
+    {
+        final long duration = System.nanoTime() - start;
+        final long ops = (REPETITIONS * 1000L * 1000L * 1000L) / duration;
+        System.out.format("%d - ops/sec=%,d - %s producer bytes/op=%.4f consumer bytes/op=%.4f sum=%d\n",
+                          Integer.valueOf(runNumber), Long.valueOf(ops), name,
+                          Double.valueOf((double)producerBytes / REPETITIONS),
+                          Double.valueOf((double)consumerBytes / REPETITIONS),
+                          Long.valueOf(sum));
+    }
+
+    public static class LongProducer implements Runnable
+    {
+        private final OneToOneConcurrentLongQueue queue;
+        private volatile long allocatedBytes;
+
+        public LongProducer(final OneToOneConcurrentLongQueue queue)
+        {
+            this.queue = queue;
+        }
+
+        public void run()
+        {
+            final long startBytes = allocatedBytes();
+            int i = REPETITIONS;
+            do
+            {
+                while (!queue.offerLong(i))
+                {
+                    Thread.yield();
+                }
+            }
+            while (0 != --i);
+
+            allocatedBytes = allocatedBytes() - startBytes;
+        }
+    }
+
+    public static class IntProducer implements Runnable
+    {
+        private final OneToOneConcurrentIntQueue queue;
+        private volatile long allocatedBytes;
+
+        public IntProducer(final OneToOneConcurrentIntQueue queue)
+        {
+            this.queue = queue;
+        }
+
+        public void run()
+        {
+            final long startBytes = allocatedBytes();
+            int i = REPETITIONS;
+            do
+            {
+                while (!queue.offerInt(i))
+                {
+                    Thread.yield();
+                }
+            }
+            while (0 != --i);
+
+            allocatedBytes = allocatedBytes() - startBytes;
+        }
+    }
+}
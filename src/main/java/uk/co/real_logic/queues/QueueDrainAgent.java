@@ -0,0 +1,136 @@
+/*
+ * Copyright 2016 Real Logic Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.co.real_logic.queues;
+
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+/**
+ * {@link Agent} which services many {@link OneToOneConcurrentArrayQueue3}s from one thread by draining each in turn
+ * up to a limit per duty cycle, so a busy queue cannot starve the others.
+ * <p>
+ * Queues may be added while the agent is running. Each queue keeps a count of elements drained from it.
+ *
+ * @param <E> type of the elements in the queues.
+ */
+public final class QueueDrainAgent<E> implements Agent
+{
+    private final String roleName;
+    private final int workLimitPerQueue;
+    private volatile Subscription<E>[] subscriptions;
+    private int nextIndex;
+
+    /**
+     * Subscription of a handler to a queue, counting the elements drained.
+     *
+     * @param <E> type of the elements in the queue.
+     */
+    public static final class Subscription<E>
+    {
+        private final OneToOneConcurrentArrayQueue3<E> queue;
+        private final Consumer<E> handler;
+        private volatile long drainedCount;
+
+        Subscription(final OneToOneConcurrentArrayQueue3<E> queue, final Consumer<E> handler)
+        {
+            this.queue = queue;
+            this.handler = handler;
+        }
+
+        public OneToOneConcurrentArrayQueue3<E> queue()
+        {
+            return queue;
+        }
+
+        public long drainedCount()
+        {
+            return drainedCount;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    public QueueDrainAgent(final String roleName, final int workLimitPerQueue)
+    {
+        this.roleName = roleName;
+        this.workLimitPerQueue = workLimitPerQueue;
+        subscriptions = (Subscription<E>[])new Subscription<?>[0];
+    }
+
+    /**
+     * Add a queue to be drained into a handler on the agent thread.
+     *
+     * @param queue   to be drained, for which the agent will be the only consumer.
+     * @param handler to be called on the agent thread for each element.
+     * @return the subscription which reports the number of elements drained.
+     */
+    public synchronized Subscription<E> addQueue(final OneToOneConcurrentArrayQueue3<E> queue, final Consumer<E> handler)
+    {
+        final Subscription<E> subscription = new Subscription<E>(queue, handler);
+        final Subscription<E>[] newSubscriptions = Arrays.copyOf(subscriptions, subscriptions.length + 1);
+        newSubscriptions[subscriptions.length] = subscription;
+        subscriptions = newSubscriptions;
+
+        return subscription;
+    }
+
+    /**
+     * The subscriptions of the queues added so far, copied so changes to the array do not affect the agent.
+     *
+     * @return a copy of the subscriptions in the order they were added.
+     */
+    public Subscription<E>[] subscriptions()
+    {
+        final Subscription<E>[] subscriptions = this.subscriptions;
+        return Arrays.copyOf(subscriptions, subscriptions.length);
+    }
+
+    public int doWork()
+    {
+        final Subscription<E>[] subscriptions = this.subscriptions;
+        final int length = subscriptions.length;
+        if (0 == length)
+        {
+            return 0;
+        }
+
+        int workCount = 0;
+        int index = nextIndex >= length ? 0 : nextIndex;
+        for (int i = 0; i < length; i++)
+        {
+            final Subscription<E> subscription = subscriptions[index];
+            final int drained = subscription.queue.drain(subscription.handler, workLimitPerQueue);
+            if (drained > 0)
+            {
+                subscription.drainedCount += drained;
+                workCount += drained;
+            }
+
+            if (++index == length)
+            {
+                index = 0;
+            }
+        }
+
+        nextIndex = index + 1;
+
+        return workCount;
+    }
+
+    public String roleName()
+    {
+        return roleName;
+    }
+}
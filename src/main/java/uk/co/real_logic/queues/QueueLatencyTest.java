@@ -0,0 +1,133 @@
+/*
+ * Copyright 2016 Real Logic Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.co.real_logic.queues;
+
+import java.util.Queue;
+
+/**
+ * Round trip latency test which bounces a message between two threads over a pair of queues at a fixed offered rate.
+ * <p>
+ * Each round trip is measured from the time the message was intended to be sent according to the rate rather than
+ * when it was actually sent. A slow round trip therefore also counts against the messages it delays, which corrects
+ * for coordinated omission.
+ * <p>
+ * Usage: java uk.co.real_logic.queues.QueueLatencyTest &lt;queue option&gt; [messages/sec] [idle strategy]
+ * with options as for {@link QueuePerfTest}.
+ */
+public class QueueLatencyTest
+{
+    public static final int QUEUE_CAPACITY = 1024;
+    public static final int MESSAGES = 1000 * 1000;
+    public static final int RUNS = 5;
+    public static final long HIGHEST_TRACKABLE_VALUE_NS = 10L * 1000 * 1000 * 1000;
+    public static final Integer TEST_VALUE = Integer.valueOf(777);
+
+    public static void main(final String[] args) throws Exception
+    {
+        final Queue<Integer> pingQueue = QueuePerfTest.createQueue(args[0], QUEUE_CAPACITY);
+        final Queue<Integer> pongQueue = QueuePerfTest.createQueue(args[0], QUEUE_CAPACITY);
+        final long messagesPerSecond = args.length > 1 ? Long.parseLong(args[1]) : 100 * 1000;
+        final String idleOption = args.length > 2 ? args[2] : "yield";
+        final LatencyHistogram histogram = new LatencyHistogram(HIGHEST_TRACKABLE_VALUE_NS);
+
+        for (int i = 0; i < RUNS; i++)
+        {
+            System.gc();
+            histogram.reset();
+
+            final Ponger ponger = new Ponger(pingQueue, pongQueue, QueuePerfTest.createIdleStrategy(idleOption));
+            final Thread thread = new Thread(ponger);
+            thread.start();
+
+            latencyRun(pingQueue, pongQueue, QueuePerfTest.createIdleStrategy(idleOption), messagesPerSecond, histogram);
+
+            ponger.running = false;
+            thread.join();
+
+            System.out.format("%d - %s messages/sec=%,d latency (us)%n",
+                Integer.valueOf(i), pingQueue.getClass().getSimpleName(), Long.valueOf(messagesPerSecond));
+            histogram.outputPercentileDistribution(System.out, 1000.0);
+        }
+    }
+
+    private static void latencyRun(
+        final Queue<Integer> pingQueue,
+        final Queue<Integer> pongQueue,
+        final IdleStrategy idleStrategy,
+        final long messagesPerSecond,
+        final LatencyHistogram histogram)
+    {
+        final long intervalNs = 1000L * 1000 * 1000 / messagesPerSecond;
+        long intendedSendTime = System.nanoTime() + intervalNs;
+
+        for (int i = 0; i < MESSAGES; i++)
+        {
+            while (System.nanoTime() < intendedSendTime)
+            {
+                // spin until the next send is due
+            }
+
+            while (!pingQueue.offer(TEST_VALUE))
+            {
+                idleStrategy.idle();
+            }
+            idleStrategy.reset();
+
+            while (null == pongQueue.poll())
+            {
+                idleStrategy.idle();
+            }
+            idleStrategy.reset();
+
+            histogram.recordValue(System.nanoTime() - intendedSendTime);
+            intendedSendTime += intervalNs;
+        }
+    }
+
+    public static class Ponger implements Runnable
+    {
+        private final Queue<Integer> pingQueue;
+        private final Queue<Integer> pongQueue;
+        private final IdleStrategy idleStrategy;
+        private volatile boolean running = true;
+
+        public Ponger(final Queue<Integer> pingQueue, final Queue<Integer> pongQueue, final IdleStrategy idleStrategy)
+        {
+            this.pingQueue = pingQueue;
+            this.pongQueue = pongQueue;
+            this.idleStrategy = idleStrategy;
+        }
+
+        public void run()
+        {
+            while (running)
+            {
+                final Integer value = pingQueue.poll();
+                if (null == value)
+                {
+                    idleStrategy.idle();
+                    continue;
+                }
+
+                idleStrategy.reset();
+                while (!pongQueue.offer(value))
+                {
+                    idleStrategy.idle();
+                }
+            }
+        }
+    }
+}
@@ -15,45 +15,146 @@
  */
 package uk.co.real_logic.queues;
 
+import java.io.File;
+import java.lang.reflect.Field;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import java.util.Queue;
+import java.util.concurrent.CountDownLatch;
+
+import static uk.co.real_logic.queues.AllocationMeter.allocatedBytes;
+import static uk.co.real_logic.queues.AllocationMeter.gcCollectionTimeMs;
+import static uk.co.real_logic.queues.AllocationMeter.gcCount;
+import static uk.co.real_logic.queues.OneToOneConcurrentArrayQueue3.findNextPositivePowerOfTwo;
 
 public class QueuePerfTest
 {
     public static final int QUEUE_CAPACITY = 32 * 1024;
+    public static final int CHUNK_SIZE = 1024;
+    public static final int MAX_PRODUCER_LANES = 64;
+    public static final int CONSUMER_FLUSH_BATCH = 256;
     public static final int REPETITIONS = 50 * 1000 * 1000;
     public static final Integer TEST_VALUE = Integer.valueOf(777);
 
+    public static final int IPC_MSG_TYPE_ID = 1;
+    public static final String[] ALL_QUEUE_OPTIONS =
+        { "1", "2", "3", "4", "5", "6", "7", "8", "9", "10", "11", "12", "13", "14", "15" };
+
     public static void main(final String[] args) throws Exception
     {
-        final Queue<Integer> queue = createQueue(args[0]);
+        if ("ipc".equals(args[0]))
+        {
+            ipcPerformanceTest(args);
+            return;
+        }
+
+        if ("ipc-producer".equals(args[0]))
+        {
+            ipcProducer(new File(args[1]));
+            return;
+        }
+
+        if ("scale".equals(args[0]))
+        {
+            scalingPerformanceTest(args);
+            return;
+        }
+
+        if ("alloc".equals(args[0]))
+        {
+            allocationPerformanceTest(args);
+            return;
+        }
+
+        final Queue<Integer> queue = createQueue(args[0], QUEUE_CAPACITY);
+        final String idleOption = args.length > 1 ? args[1] : "yield";
 
         for (int i = 0; i < 5; i++)
         {
             System.gc();
-            performanceRun(i, queue);
+            performanceRun(i, queue, createIdleStrategy(idleOption), createIdleStrategy(idleOption));
         }
     }
 
-    private static Queue<Integer> createQueue(final String option)
+    static <E> Queue<E> createQueue(final String option, final int capacity)
     {
         switch (Integer.parseInt(option))
         {
-            case 1: return new OneToOneConcurrentArrayQueue<Integer>(QUEUE_CAPACITY);
-            case 2: return new OneToOneConcurrentArrayQueue2<Integer>(QUEUE_CAPACITY);
-            case 3: return new OneToOneConcurrentArrayQueue3<Integer>(QUEUE_CAPACITY);
-            case 4: return new java.util.concurrent.ArrayBlockingQueue<Integer>(QUEUE_CAPACITY);
-            case 5: return new java.util.concurrent.LinkedBlockingQueue<Integer>(QUEUE_CAPACITY);
-            case 6: return new java.util.concurrent.ConcurrentLinkedQueue<Integer>();
-            case 7: return new java.util.concurrent.LinkedTransferQueue<Integer>();
+            case 1: return new OneToOneConcurrentArrayQueue<E>(capacity);
+            case 2: return new OneToOneConcurrentArrayQueue2<E>(capacity);
+            case 3: return new OneToOneConcurrentArrayQueue3<E>(capacity);
+            case 4: return new java.util.concurrent.ArrayBlockingQueue<E>(capacity);
+            case 5: return new java.util.concurrent.LinkedBlockingQueue<E>(capacity);
+            case 6: return new java.util.concurrent.ConcurrentLinkedQueue<E>();
+            case 7: return new java.util.concurrent.LinkedTransferQueue<E>();
+            case 8: return new ManyToOneConcurrentArrayQueue<E>(capacity);
+            case 9: return new ManyToManyConcurrentArrayQueue<E>(capacity);
+            case 10: return new OneToOneConcurrentChunkedArrayQueue<E>(CHUNK_SIZE, (capacity / CHUNK_SIZE) + 1);
+            case 11: return checkVarHandleVersion(new OneToOneConcurrentArrayQueue4<E>(capacity));
+            case 12: return checkVarHandleVersion(new ManyToOneConcurrentArrayQueue2<E>(capacity));
+            case 13: return new ManyToOneConcurrentStripedQueue<E>(capacity, MAX_PRODUCER_LANES);
+            case 14: return new BlockingQueueAdapter<E>(
+                new OneToOneConcurrentArrayQueue3<E>(capacity), findNextPositivePowerOfTwo(capacity));
+            case 15: return new BlockingQueueAdapter<E>(
+                new ManyToManyConcurrentArrayQueue<E>(capacity), findNextPositivePowerOfTwo(capacity));
 
             default: throw new IllegalArgumentException("Invalid option: " + option);
         }
     }
 
-    private static void performanceRun(final int runNumber, final Queue<Integer> queue) throws Exception
+    /**
+     * Is the class the Java 9 version from the multi-release jar, which accesses its fields via VarHandles, rather than
+     * the Java 8 version it replaces.
+     *
+     * @param queueClass to be checked.
+     * @return true if the class holds VarHandles.
+     */
+    static boolean isVarHandleVersion(final Class<?> queueClass)
+    {
+        for (final Field field : queueClass.getDeclaredFields())
+        {
+            if ("java.lang.invoke.VarHandle".equals(field.getType().getName()))
+            {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    private static <E> Queue<E> checkVarHandleVersion(final Queue<E> queue)
+    {
+        if (!isVarHandleVersion(queue.getClass()))
+        {
+            System.err.println("WARNING: " + queue.getClass().getSimpleName() + " is the Java 8 version, run on Java 9 " +
+                "or later with the multi-release jar, or the java9 output ahead of main, to measure the VarHandle version");
+        }
+
+        return queue;
+    }
+
+    static IdleStrategy createIdleStrategy(final String option)
+    {
+        switch (option)
+        {
+            case "spin": return new BusySpinIdleStrategy();
+            case "yield": return new YieldingIdleStrategy();
+            case "backoff": return new BackoffIdleStrategy(100, 10, 1000, 1000 * 1000);
+            case "sleep": return new SleepingIdleStrategy(1000);
+
+            default: throw new IllegalArgumentException("Invalid idle strategy: " + option);
+        }
+    }
+
+    private static void performanceRun(
+        final int runNumber,
+        final Queue<Integer> queue,
+        final IdleStrategy consumerIdleStrategy,
+        final IdleStrategy producerIdleStrategy)
+        throws Exception
     {
         final long start = System.nanoTime();
-        final Thread thread = new Thread(new Producer(queue));
+        final Thread thread = new Thread(new Producer(queue, producerIdleStrategy));
         thread.start();
 
         Integer result;
@@ -62,8 +163,10 @@ public class QueuePerfTest
         {
             while (null == (result = queue.poll()))
             {
-                Thread.yield();
+                consumerIdleStrategy.idle();
             }
+
+            consumerIdleStrategy.reset();
         }
         while (0 != --i);
 
@@ -71,31 +174,415 @@ public class QueuePerfTest
 
         final long duration = System.nanoTime() - start;
         final long ops = (REPETITIONS * 1000L * 1000L * 1000L) / duration;
-        System.out.format("%d - ops/sec=%,d - %s result=%d\n",
+        System.out.format("%d - ops/sec=%,d - %s %s result=%d\n",
                           Integer.valueOf(runNumber), Long.valueOf(ops),
-                          queue.getClass().getSimpleName(), result);
+                          queue.getClass().getSimpleName(), consumerIdleStrategy.getClass().getSimpleName(), result);
     }
 
     public static class Producer implements Runnable
     {
         private final Queue<Integer> queue;
+        private final IdleStrategy idleStrategy;
+        private final int repetitions;
+        private long operations;
 
-        public Producer(final Queue<Integer> queue)
+        public Producer(final Queue<Integer> queue, final IdleStrategy idleStrategy)
+        {
+            this(queue, idleStrategy, REPETITIONS);
+        }
+
+        public Producer(final Queue<Integer> queue, final IdleStrategy idleStrategy, final int repetitions)
         {
             this.queue = queue;
+            this.idleStrategy = idleStrategy;
+            this.repetitions = repetitions;
+        }
+
+        /**
+         * Operations completed by the producer which is only safe to read once the producing thread has been joined.
+         *
+         * @return the number of elements offered successfully.
+         */
+        public long operations()
+        {
+            return operations;
         }
 
         public void run()
         {
-            int i = REPETITIONS;
+            long operations = 0;
+            int i = repetitions;
             do
             {
                 while (!queue.offer(TEST_VALUE))
                 {
-                    Thread.yield();
+                    idleStrategy.idle();
                 }
+
+                idleStrategy.reset();
+                operations++;
             }
             while (0 != --i);
+
+            this.operations = operations;
+        }
+    }
+
+    /**
+     * Run every combination of producer and consumer thread counts supported by the chosen queue options and print
+     * the results as CSV with the operations completed by each thread.
+     * Usage: java uk.co.real_logic.queues.QueuePerfTest scale [option|all] [max producers] [max consumers] [idle]
+     */
+    private static void scalingPerformanceTest(final String[] args) throws Exception
+    {
+        final String queueOption = args.length > 1 ? args[1] : "all";
+        final int maxProducers = args.length > 2 ?
+            Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+        final int maxConsumers = args.length > 3 ? Integer.parseInt(args[3]) : 1;
+        final String idleOption = args.length > 4 ? args[4] : "yield";
+        final String[] options = "all".equals(queueOption) ? ALL_QUEUE_OPTIONS : new String[]{ queueOption };
+
+        System.out.println("option,queue,producers,consumers,run,ops/sec,producer ops,consumer ops");
+        for (final String option : options)
+        {
+            for (int producers = 1; producers <= Math.min(maxProducers, maxProducers(option)); producers++)
+            {
+                for (int consumers = 1; consumers <= Math.min(maxConsumers, maxConsumers(option)); consumers++)
+                {
+                    for (int i = 0; i < 3; i++)
+                    {
+                        System.gc();
+                        scalingRun(i, option, producers, consumers, idleOption);
+                    }
+                }
+            }
+        }
+    }
+
+    private static void scalingRun(
+        final int runNumber, final String option, final int producers, final int consumers, final String idleOption)
+        throws Exception
+    {
+        final Queue<Integer> queue = createQueue(option, QUEUE_CAPACITY);
+        final int repetitionsPerProducer = REPETITIONS / producers;
+        final long total = (long)repetitionsPerProducer * producers;
+        final PaddedAtomicLong consumed = new PaddedAtomicLong(0);
+        final CountDownLatch consumedLatch = new CountDownLatch(1);
+
+        final Producer[] producerTasks = new Producer[producers];
+        final Thread[] producerThreads = new Thread[producers];
+        for (int i = 0; i < producers; i++)
+        {
+            producerTasks[i] = new Producer(queue, createIdleStrategy(idleOption), repetitionsPerProducer);
+            producerThreads[i] = new Thread(producerTasks[i]);
+        }
+
+        final Consumer[] consumerTasks = new Consumer[consumers];
+        final Thread[] consumerThreads = new Thread[consumers];
+        for (int i = 0; i < consumers; i++)
+        {
+            consumerTasks[i] = new Consumer(queue, createIdleStrategy(idleOption), consumed, total, consumedLatch);
+            consumerThreads[i] = new Thread(consumerTasks[i]);
+        }
+
+        final long start = System.nanoTime();
+        for (final Thread thread : consumerThreads)
+        {
+            thread.start();
+        }
+
+        for (final Thread thread : producerThreads)
+        {
+            thread.start();
+        }
+
+        consumedLatch.await();
+
+        for (final Consumer consumer : consumerTasks)
+        {
+            consumer.running = false;
+        }
+
+        long totalProduced = 0;
+        final StringBuilder producerOps = new StringBuilder();
+        for (int i = 0; i < producers; i++)
+        {
+            producerThreads[i].join();
+            totalProduced += producerTasks[i].operations();
+            producerOps.append(0 == i ? "" : ";").append(producerTasks[i].operations());
+        }
+
+        long end = 0;
+        final StringBuilder consumerOps = new StringBuilder();
+        for (int i = 0; i < consumers; i++)
+        {
+            consumerThreads[i].join();
+            end = Math.max(end, consumerTasks[i].completedNs);
+            consumerOps.append(0 == i ? "" : ";").append(consumerTasks[i].operations);
+        }
+
+        final long duration = end - start;
+        final long ops = (totalProduced * 1000L * 1000L * 1000L) / duration;
+        System.out.format("%s,%s,%d,%d,%d,%d,%s,%s\n",
+                          option, queue.getClass().getSimpleName(), Integer.valueOf(producers),
+                          Integer.valueOf(consumers), Integer.valueOf(runNumber), Long.valueOf(ops),
+                          producerOps, consumerOps);
+    }
+
+    static int maxProducers(final String option)
+    {
+        switch (Integer.parseInt(option))
+        {
+            case 1: case 2: case 3: case 10: case 11: case 14: return 1;
+            default: return Integer.MAX_VALUE;
+        }
+    }
+
+    static int maxConsumers(final String option)
+    {
+        switch (Integer.parseInt(option))
+        {
+            case 4: case 5: case 6: case 7: case 9: case 15: return Integer.MAX_VALUE;
+            default: return 1;
+        }
+    }
+
+    /**
+     * Run one producer and one consumer for the chosen queue options reporting the bytes allocated per operation on
+     * each thread, and the count and accumulated collection time, as reported by the collectors rather than pause
+     * times, of garbage collections during each run.
+     * Usage: java uk.co.real_logic.queues.QueuePerfTest alloc [option|all] [idle]
+     */
+    private static void allocationPerformanceTest(final String[] args) throws Exception
+    {
+        final String queueOption = args.length > 1 ? args[1] : "all";
+        final String idleOption = args.length > 2 ? args[2] : "yield";
+        final String[] options = "all".equals(queueOption) ? ALL_QUEUE_OPTIONS : new String[]{ queueOption };
+
+        for (final String option : options)
+        {
+            final Queue<Integer> queue = createQueue(option, QUEUE_CAPACITY);
+            for (int i = 0; i < 5; i++)
+            {
+                System.gc();
+                allocationRun(i, queue, createIdleStrategy(idleOption), createIdleStrategy(idleOption));
+            }
+        }
+    }
+
+    private static void allocationRun(
+        final int runNumber,
+        final Queue<Integer> queue,
+        final IdleStrategy consumerIdleStrategy,
+        final IdleStrategy producerIdleStrategy)
+        throws Exception
+    {
+        final long startGcCount = gcCount();
+        final long startGcTimeMs = gcCollectionTimeMs();
+
+        final AllocationRecorder producer = new AllocationRecorder(new Producer(queue, producerIdleStrategy));
+        final Thread thread = new Thread(producer);
+
+        final long start = System.nanoTime();
+        final long startBytes = allocatedBytes();
+        thread.start();
+
+        int i = REPETITIONS;
+        do
+        {
+            while (null == queue.poll())
+            {
+                consumerIdleStrategy.idle();
+            }
+
+            consumerIdleStrategy.reset();
+        }
+        while (0 != --i);
+
+        final long consumerBytes = allocatedBytes() - startBytes;
+        thread.join();
+
+        final long duration = System.nanoTime() - start;
+        final long ops = (REPETITIONS * 1000L * 1000L * 1000L) / duration;
+        System.out.format(
+            "%d - ops/sec=%,d - %s producer B/op=%.2f consumer B/op=%.2f gc count=%d accumulated gc collection time=%dms\n",
+            Integer.valueOf(runNumber), Long.valueOf(ops), queue.getClass().getSimpleName(),
+            Double.valueOf((double)producer.allocatedBytes / REPETITIONS),
+            Double.valueOf((double)consumerBytes / REPETITIONS),
+            Long.valueOf(gcCount() - startGcCount),
+            Long.valueOf(gcCollectionTimeMs() - startGcTimeMs));
+    }
+
+    public static class AllocationRecorder implements Runnable
+    {
+        private final Runnable delegate;
+        private volatile long allocatedBytes;
+
+        public AllocationRecorder(final Runnable delegate)
+        {
+            this.delegate = delegate;
+        }
+
+        public void run()
+        {
+            final long startBytes = allocatedBytes();
+            delegate.run();
+            allocatedBytes = allocatedBytes() - startBytes;
+        }
+    }
+
+    /**
+     * Consumer for the scaling runs which adds its count to a shared total every {@link #CONSUMER_FLUSH_BATCH}
+     * elements, or when the queue is found empty, so the consumer which brings the total to the expected value can
+     * record the end time and release the waiting thread without it polling the counts.
+     */
+    public static class Consumer implements Runnable
+    {
+        private final Queue<Integer> queue;
+        private final IdleStrategy idleStrategy;
+        private final PaddedAtomicLong consumed;
+        private final long total;
+        private final CountDownLatch consumedLatch;
+        private volatile boolean running = true;
+        private long operations;
+        private long completedNs;
+
+        public Consumer(
+            final Queue<Integer> queue,
+            final IdleStrategy idleStrategy,
+            final PaddedAtomicLong consumed,
+            final long total,
+            final CountDownLatch consumedLatch)
+        {
+            this.queue = queue;
+            this.idleStrategy = idleStrategy;
+            this.consumed = consumed;
+            this.total = total;
+            this.consumedLatch = consumedLatch;
+        }
+
+        public void run()
+        {
+            long operations = 0;
+            int unflushed = 0;
+            while (running)
+            {
+                if (null == queue.poll())
+                {
+                    if (0 != unflushed)
+                    {
+                        flush(unflushed);
+                        unflushed = 0;
+                    }
+
+                    idleStrategy.idle();
+                }
+                else
+                {
+                    idleStrategy.reset();
+                    operations++;
+                    if (CONSUMER_FLUSH_BATCH == ++unflushed)
+                    {
+                        flush(unflushed);
+                        unflushed = 0;
+                    }
+                }
+            }
+
+            this.operations = operations;
+        }
+
+        private void flush(final int count)
+        {
+            if (total == consumed.addAndGet(count))
+            {
+                completedNs = System.nanoTime();
+                consumedLatch.countDown();
+            }
+        }
+    }
+
+    /**
+     * Consume in this process from an {@link IpcOneToOneRingBuffer} while a producer runs in a child process.
+     * Usage: java uk.co.real_logic.queues.QueuePerfTest ipc [file]
+     */
+    private static void ipcPerformanceTest(final String[] args) throws Exception
+    {
+        final File file;
+        if (args.length > 1)
+        {
+            file = new File(args[1]);
+        }
+        else
+        {
+            file = File.createTempFile("queue-perf-test", ".ipc");
+            file.deleteOnExit();
+        }
+
+        final IpcOneToOneRingBuffer ringBuffer = IpcOneToOneRingBuffer.create(file, QUEUE_CAPACITY * 8);
+        final IpcConsumer consumer = new IpcConsumer();
+
+        for (int i = 0; i < 5; i++)
+        {
+            final String javaBin = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+            final Process producer = new ProcessBuilder(
+                javaBin, "-cp", System.getProperty("java.class.path"),
+                QueuePerfTest.class.getName(), "ipc-producer", file.getAbsolutePath())
+                .inheritIO()
+                .start();
+
+            consumer.count = 0;
+            while (0 == consumer.count)
+            {
+                ringBuffer.read(consumer, Integer.MAX_VALUE);
+                Thread.yield();
+            }
+
+            final long start = System.nanoTime();
+            final long initialCount = consumer.count;
+            while (consumer.count < REPETITIONS)
+            {
+                if (0 == ringBuffer.read(consumer, Integer.MAX_VALUE))
+                {
+                    Thread.yield();
+                }
+            }
+
+            final long duration = System.nanoTime() - start;
+            producer.waitFor();
+
+            final long ops = ((REPETITIONS - initialCount) * 1000L * 1000L * 1000L) / duration;
+            System.out.format("%d - ops/sec=%,d - %s result=%d\n",
+                              Integer.valueOf(i), Long.valueOf(ops),
+                              ringBuffer.getClass().getSimpleName(), Integer.valueOf(consumer.result));
+        }
+    }
+
+    private static void ipcProducer(final File file) throws Exception
+    {
+        final IpcOneToOneRingBuffer ringBuffer = IpcOneToOneRingBuffer.attach(file);
+        final byte[] message = ByteBuffer.allocate(4).order(ByteOrder.nativeOrder()).putInt(TEST_VALUE.intValue()).array();
+
+        int i = REPETITIONS;
+        do
+        {
+            while (!ringBuffer.write(IPC_MSG_TYPE_ID, message, 0, message.length))
+            {
+                Thread.yield();
+            }
+        }
+        while (0 != --i);
+    }
+
+    public static class IpcConsumer implements MessageHandler
+    {
+        private long count;
+        private int result;
+
+        public void onMessage(final int msgTypeId, final ByteBuffer buffer, final int index, final int length)
+        {
+            result = buffer.getInt(index);
+            count++;
         }
     }
 }
@@ -0,0 +1,115 @@
+/*
+ * Copyright 2016 Real Logic Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.co.real_logic.queues;
+
+import java.util.Queue;
+
+/**
+ * Measures how consumer throughput scales as the number of producers grows from one to the number of available
+ * cores, comparing the striped queue with the shared tail many to one queues.
+ * <p>
+ * Usage: java uk.co.real_logic.queues.StripedQueuePerfTest [max producers]
+ */
+public class StripedQueuePerfTest
+{
+    public static final int REPETITIONS = 20 * 1000 * 1000;
+    public static final Integer TEST_VALUE = Integer.valueOf(777);
+    public static final String[] QUEUE_OPTIONS = { "8", "12", "13" };
+
+    public static void main(final String[] args) throws Exception
+    {
+        final int maxProducers = args.length > 0 ?
+            Integer.parseInt(args[0]) : Runtime.getRuntime().availableProcessors();
+
+        for (int producerCount = 1; producerCount <= maxProducers; producerCount++)
+        {
+            for (final String option : QUEUE_OPTIONS)
+            {
+                for (int i = 0; i < 3; i++)
+                {
+                    System.gc();
+                    performanceRun(i, option, producerCount);
+                }
+            }
+        }
+    }
+
+    private static void performanceRun(final int runNumber, final String option, final int producerCount)
+        throws Exception
+    {
+        final Queue<Integer> queue = QueuePerfTest.createQueue(option, QueuePerfTest.QUEUE_CAPACITY);
+        final int repetitionsPerProducer = REPETITIONS / producerCount;
+        final int total = repetitionsPerProducer * producerCount;
+
+        final Thread[] threads = new Thread[producerCount];
+        for (int i = 0; i < producerCount; i++)
+        {
+            threads[i] = new Thread(new Producer(queue, repetitionsPerProducer));
+        }
+
+        final long start = System.nanoTime();
+        for (final Thread thread : threads)
+        {
+            thread.start();
+        }
+
+        for (int count = 0; count < total;)
+        {
+            if (null == queue.poll())
+            {
+                Thread.yield();
+            }
+            else
+            {
+                count++;
+            }
+        }
+
+        final long duration = System.nanoTime() - start;
+        for (final Thread thread : threads)
+        {
+            thread.join();
+        }
+
+        final long ops = (total * 1000L * 1000L * 1000L) / duration;
+        System.out.format("%d - producers=%d ops/sec=%,d - %s\n",
+                          Integer.valueOf(runNumber), Integer.valueOf(producerCount),
+                          Long.valueOf(ops), queue.getClass().getSimpleName());
+    }
+
+    public static class Producer implements Runnable
+    {
+        private final Queue<Integer> queue;
+        private final int repetitions;
+
+        public Producer(final Queue<Integer> queue, final int repetitions)
+        {
+            this.queue = queue;
+            this.repetitions = repetitions;
+        }
+
+        public void run()
+        {
+            for (int i = 0; i < repetitions; i++)
+            {
+                while (!queue.offer(TEST_VALUE))
+                {
+                    Thread.yield();
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,124 @@
+/*
+ * Copyright 2016 Real Logic Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.co.real_logic.queues;
+
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import static uk.co.real_logic.queues.AllocationMeter.allocatedBytes;
+
+/**
+ * Compares the throughput and allocation of scheduling a batch of timeouts and then cancelling them, as happens
+ * with request timeouts which are usually cancelled by the response, between a {@link HashedTimerWheel} and a
+ * {@link ScheduledThreadPoolExecutor}.
+ * <p>
+ * Usage: java uk.co.real_logic.queues.TimerWheelPerfTest
+ */
+public class TimerWheelPerfTest
+{
+    public static final int BATCH_SIZE = 1000;
+    public static final int REPETITIONS = 10 * 1000;
+    public static final long TICK_RESOLUTION_NS = 1L << 20;
+    public static final int TICKS_PER_WHEEL = 512;
+    public static final long MAX_DELAY_NS = TimeUnit.MILLISECONDS.toNanos(500);
+
+    private static final Runnable NO_OP_TASK = () -> {};
+
+    public static void main(final String[] args) throws Exception
+    {
+        final HashedTimerWheel wheel = new HashedTimerWheel(
+            new OneToOneConcurrentLongQueue(1024, -1), System.nanoTime(), TICK_RESOLUTION_NS, TICKS_PER_WHEEL, 16);
+        final ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1);
+        executor.setRemoveOnCancelPolicy(true);
+
+        for (int i = 0; i < 5; i++)
+        {
+            System.gc();
+            timerWheelRun(i, wheel);
+        }
+
+        for (int i = 0; i < 5; i++)
+        {
+            System.gc();
+            executorRun(i, executor);
+        }
+
+        executor.shutdownNow();
+    }
+
+    private static void timerWheelRun(final int runNumber, final HashedTimerWheel wheel)
+    {
+        final long[] timerIds = new long[BATCH_SIZE];
+        final long startBytes = allocatedBytes();
+        final long start = System.nanoTime();
+
+        for (int r = 0; r < REPETITIONS; r++)
+        {
+            final long nowNs = System.nanoTime();
+            wheel.poll(nowNs, Integer.MAX_VALUE);
+
+            for (int i = 0; i < BATCH_SIZE; i++)
+            {
+                timerIds[i] = wheel.scheduleTimer(nowNs + delayNs(i));
+            }
+
+            for (int i = 0; i < BATCH_SIZE; i++)
+            {
+                wheel.cancelTimer(timerIds[i]);
+            }
+        }
+
+        report(runNumber, wheel.getClass().getSimpleName(), start, allocatedBytes() - startBytes);
+    }
+
+    private static void executorRun(final int runNumber, final ScheduledThreadPoolExecutor executor)
+    {
+        final ScheduledFuture<?>[] futures = new ScheduledFuture<?>[BATCH_SIZE];
+        final long startBytes = allocatedBytes();
+        final long start = System.nanoTime();
+
+        for (int r = 0; r < REPETITIONS; r++)
+        {
+            for (int i = 0; i < BATCH_SIZE; i++)
+            {
+                futures[i] = executor.schedule(NO_OP_TASK, delayNs(i), TimeUnit.NANOSECONDS);
+            }
+
+            for (int i = 0; i < BATCH_SIZE; i++)
+            {
+                futures[i].cancel(false);
+            }
+        }
+
+        report(runNumber, executor.getClass().getSimpleName(), start, allocatedBytes() - startBytes);
+    }
+
+    private static long delayNs(final int i)
+    {
+        return MAX_DELAY_NS - (i * (MAX_DELAY_NS / BATCH_SIZE));
+    }
+
+    private static void report(final int runNumber, final String name, final long start, final long allocatedBytes)
+    {
+        final long duration = System.nanoTime() - start;
+        final long operations = (long)REPETITIONS * BATCH_SIZE;
+        final long ops = (operations * 1000L * 1000L * 1000L) / duration;
+        System.out.format("%d - schedule+cancel ops/sec=%,d B/op=%.2f - %s\n",
+                          Integer.valueOf(runNumber), Long.valueOf(ops),
+                          Double.valueOf((double)allocatedBytes / operations), name);
+    }
+}
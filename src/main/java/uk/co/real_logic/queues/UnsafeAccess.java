@@ -0,0 +1,67 @@
+/*
+ * Copyright 2016 Real Logic Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.co.real_logic.queues;
+
+import sun.misc.Unsafe;
+
+import java.lang.reflect.Field;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+
+/**
+ * Access to {@link Unsafe} for ordered and volatile operations on memory outside the Java heap.
+ */
+public final class UnsafeAccess
+{
+    public static final Unsafe UNSAFE;
+    private static final long BUFFER_ADDRESS_OFFSET;
+
+    static
+    {
+        try
+        {
+            final Field field = Unsafe.class.getDeclaredField("theUnsafe");
+            field.setAccessible(true);
+            UNSAFE = (Unsafe)field.get(null);
+            BUFFER_ADDRESS_OFFSET = UNSAFE.objectFieldOffset(Buffer.class.getDeclaredField("address"));
+        }
+        catch (final Exception ex)
+        {
+            throw new RuntimeException(ex);
+        }
+    }
+
+    private UnsafeAccess()
+    {
+    }
+
+    /**
+     * Get the native address of a direct {@link ByteBuffer}.
+     *
+     * @param buffer which must be direct.
+     * @return the native address at which the buffer begins.
+     * @throws IllegalArgumentException if the buffer is not direct.
+     */
+    public static long address(final ByteBuffer buffer)
+    {
+        if (!buffer.isDirect())
+        {
+            throw new IllegalArgumentException("Buffer must be direct");
+        }
+
+        return UNSAFE.getLong(buffer, BUFFER_ADDRESS_OFFSET);
+    }
+}
@@ -0,0 +1,41 @@
+/*
+ * Copyright 2016 Real Logic Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.co.real_logic.queues;
+
+/**
+ * Call {@link Thread#yield()} when idle so other runnable threads can use the core.
+ */
+public final class YieldingIdleStrategy implements IdleStrategy
+{
+    public void idle(final int workCount)
+    {
+        if (workCount > 0)
+        {
+            return;
+        }
+
+        Thread.yield();
+    }
+
+    public void idle()
+    {
+        Thread.yield();
+    }
+
+    public void reset()
+    {
+    }
+}
@@ -0,0 +1,283 @@
+/*
+ * Copyright 2016 Real Logic Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.co.real_logic.queues;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Queue;
+
+import static uk.co.real_logic.queues.OneToOneConcurrentArrayQueue3.findNextPositivePowerOfTwo;
+
+abstract class ManyToOneConcurrentArrayQueue2Padding1
+{
+    long p01, p02, p03, p04, p05, p06, p07, p08;
+}
+
+abstract class ManyToOneConcurrentArrayQueue2Producer extends ManyToOneConcurrentArrayQueue2Padding1
+{
+    long tail;
+}
+
+abstract class ManyToOneConcurrentArrayQueue2Padding2 extends ManyToOneConcurrentArrayQueue2Producer
+{
+    long p11, p12, p13, p14, p15, p16, p17, p18;
+}
+
+abstract class ManyToOneConcurrentArrayQueue2HeadCache extends ManyToOneConcurrentArrayQueue2Padding2
+{
+    long sharedHeadCache;
+}
+
+abstract class ManyToOneConcurrentArrayQueue2Padding3 extends ManyToOneConcurrentArrayQueue2HeadCache
+{
+    long p21, p22, p23, p24, p25, p26, p27, p28;
+}
+
+abstract class ManyToOneConcurrentArrayQueue2Consumer extends ManyToOneConcurrentArrayQueue2Padding3
+{
+    long head;
+}
+
+abstract class ManyToOneConcurrentArrayQueue2Padding4 extends ManyToOneConcurrentArrayQueue2Consumer
+{
+    long p31, p32, p33, p34, p35, p36, p37, p38;
+}
+
+/**
+ * Java 9 version of the many producer to one consumer queue which follows {@link ManyToOneConcurrentArrayQueue}.
+ * <p>
+ * Head, tail and the shared head cache are plain fields, padded by the class hierarchy, and are accessed via
+ * VarHandles. Elements are published with release stores and read with acquire loads through an array element
+ * VarHandle rather than an AtomicReferenceArray.
+ *
+ * @param <E> type of the elements stored in the queue.
+ */
+public final class ManyToOneConcurrentArrayQueue2<E>
+    extends ManyToOneConcurrentArrayQueue2Padding4
+    implements Queue<E>
+{
+    private static final VarHandle TAIL;
+    private static final VarHandle HEAD;
+    private static final VarHandle SHARED_HEAD_CACHE;
+    private static final VarHandle ELEMENT = MethodHandles.arrayElementVarHandle(Object[].class);
+
+    static
+    {
+        try
+        {
+            final MethodHandles.Lookup lookup = MethodHandles.lookup();
+            TAIL = lookup.findVarHandle(ManyToOneConcurrentArrayQueue2Producer.class, "tail", long.class);
+            HEAD = lookup.findVarHandle(ManyToOneConcurrentArrayQueue2Consumer.class, "head", long.class);
+            SHARED_HEAD_CACHE = lookup.findVarHandle(
+                ManyToOneConcurrentArrayQueue2HeadCache.class, "sharedHeadCache", long.class);
+        }
+        catch (final ReflectiveOperationException ex)
+        {
+            throw new ExceptionInInitializerError(ex);
+        }
+    }
+
+    private final int capacity;
+    private final int mask;
+    private final E[] buffer;
+
+    @SuppressWarnings("unchecked")
+    public ManyToOneConcurrentArrayQueue2(final int capacity)
+    {
+        this.capacity = findNextPositivePowerOfTwo(capacity);
+        mask = this.capacity - 1;
+        buffer = (E[])new Object[this.capacity];
+    }
+
+    public boolean add(final E e)
+    {
+        if (offer(e))
+        {
+            return true;
+        }
+
+        throw new IllegalStateException("Queue is full");
+    }
+
+    public boolean offer(final E e)
+    {
+        if (null == e)
+        {
+            throw new NullPointerException("Null is not a valid element");
+        }
+
+        long headCache = (long)SHARED_HEAD_CACHE.getAcquire(this);
+        long currentTail;
+        do
+        {
+            currentTail = (long)TAIL.getVolatile(this);
+            final long wrapPoint = currentTail - capacity;
+            if (headCache <= wrapPoint)
+            {
+                headCache = (long)HEAD.getAcquire(this);
+                if (headCache <= wrapPoint)
+                {
+                    return false;
+                }
+
+                SHARED_HEAD_CACHE.setRelease(this, headCache);
+            }
+        }
+        while (!TAIL.compareAndSet(this, currentTail, currentTail + 1));
+
+        ELEMENT.setRelease(buffer, (int)currentTail & mask, e);
+
+        return true;
+    }
+
+    @SuppressWarnings("unchecked")
+    public E poll()
+    {
+        final long currentHead = head;
+        final int index = (int)currentHead & mask;
+        final E e = (E)ELEMENT.getAcquire(buffer, index);
+        if (null != e)
+        {
+            buffer[index] = null;
+            HEAD.setRelease(this, currentHead + 1);
+        }
+
+        return e;
+    }
+
+    public E remove()
+    {
+        final E e = poll();
+        if (null == e)
+        {
+            throw new NoSuchElementException("Queue is empty");
+        }
+
+        return e;
+    }
+
+    public E element()
+    {
+        final E e = peek();
+        if (null == e)
+        {
+            throw new NoSuchElementException("Queue is empty");
+        }
+
+        return e;
+    }
+
+    @SuppressWarnings("unchecked")
+    public E peek()
+    {
+        return (E)ELEMENT.getAcquire(buffer, (int)(long)HEAD.getAcquire(this) & mask);
+    }
+
+    public int size()
+    {
+        return (int)((long)TAIL.getOpaque(this) - (long)HEAD.getOpaque(this));
+    }
+
+    public boolean isEmpty()
+    {
+        return (long)TAIL.getOpaque(this) == (long)HEAD.getOpaque(this);
+    }
+
+    public boolean contains(final Object o)
+    {
+        if (null == o)
+        {
+            return false;
+        }
+
+        for (long i = (long)HEAD.getAcquire(this), limit = (long)TAIL.getAcquire(this); i < limit; i++)
+        {
+            final Object e = ELEMENT.getAcquire(buffer, (int)i & mask);
+            if (o.equals(e))
+            {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    public Iterator<E> iterator()
+    {
+        throw new UnsupportedOperationException();
+    }
+
+    public Object[] toArray()
+    {
+        throw new UnsupportedOperationException();
+    }
+
+    public <T> T[] toArray(final T[] a)
+    {
+        throw new UnsupportedOperationException();
+    }
+
+    public boolean remove(final Object o)
+    {
+        throw new UnsupportedOperationException();
+    }
+
+    public boolean containsAll(final Collection<?> c)
+    {
+        for (final Object o : c)
+        {
+            if (!contains(o))
+            {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    public boolean addAll(final Collection<? extends E> c)
+    {
+        for (final E e : c)
+        {
+            add(e);
+        }
+
+        return true;
+    }
+
+    public boolean removeAll(final Collection<?> c)
+    {
+        throw new UnsupportedOperationException();
+    }
+
+    public boolean retainAll(final Collection<?> c)
+    {
+        throw new UnsupportedOperationException();
+    }
+
+    public void clear()
+    {
+        Object value;
+        do
+        {
+            value = poll();
+        }
+        while (null != value);
+    }
+}
@@ -0,0 +1,269 @@
+/*
+ * Copyright 2016 Real Logic Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.co.real_logic.queues;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Queue;
+
+import static uk.co.real_logic.queues.OneToOneConcurrentArrayQueue3.findNextPositivePowerOfTwo;
+
+abstract class OneToOneConcurrentArrayQueue4Padding1
+{
+    long p01, p02, p03, p04, p05, p06, p07, p08;
+}
+
+abstract class OneToOneConcurrentArrayQueue4Producer extends OneToOneConcurrentArrayQueue4Padding1
+{
+    long tail;
+    long headCache;
+}
+
+abstract class OneToOneConcurrentArrayQueue4Padding2 extends OneToOneConcurrentArrayQueue4Producer
+{
+    long p11, p12, p13, p14, p15, p16, p17, p18;
+}
+
+abstract class OneToOneConcurrentArrayQueue4Consumer extends OneToOneConcurrentArrayQueue4Padding2
+{
+    long head;
+    long tailCache;
+}
+
+abstract class OneToOneConcurrentArrayQueue4Padding3 extends OneToOneConcurrentArrayQueue4Consumer
+{
+    long p21, p22, p23, p24, p25, p26, p27, p28;
+}
+
+/**
+ * Java 9 version of the one producer to one consumer queue which follows {@link OneToOneConcurrentArrayQueue3}.
+ * <p>
+ * Head and tail are plain fields, padded from each other and from other objects by the class hierarchy, and are
+ * accessed via VarHandles with release stores and acquire loads. This removes the indirection of reaching them
+ * through separate AtomicLong objects.
+ *
+ * @param <E> type of the elements stored in the queue.
+ */
+public final class OneToOneConcurrentArrayQueue4<E>
+    extends OneToOneConcurrentArrayQueue4Padding3
+    implements Queue<E>
+{
+    private static final VarHandle TAIL;
+    private static final VarHandle HEAD;
+
+    static
+    {
+        try
+        {
+            final MethodHandles.Lookup lookup = MethodHandles.lookup();
+            TAIL = lookup.findVarHandle(OneToOneConcurrentArrayQueue4Producer.class, "tail", long.class);
+            HEAD = lookup.findVarHandle(OneToOneConcurrentArrayQueue4Consumer.class, "head", long.class);
+        }
+        catch (final ReflectiveOperationException ex)
+        {
+            throw new ExceptionInInitializerError(ex);
+        }
+    }
+
+    private final int capacity;
+    private final int mask;
+    private final E[] buffer;
+
+    @SuppressWarnings("unchecked")
+    public OneToOneConcurrentArrayQueue4(final int capacity)
+    {
+        this.capacity = findNextPositivePowerOfTwo(capacity);
+        mask = this.capacity - 1;
+        buffer = (E[])new Object[this.capacity];
+    }
+
+    public boolean add(final E e)
+    {
+        if (offer(e))
+        {
+            return true;
+        }
+
+        throw new IllegalStateException("Queue is full");
+    }
+
+    public boolean offer(final E e)
+    {
+        if (null == e)
+        {
+            throw new NullPointerException("Null is not a valid element");
+        }
+
+        final long currentTail = tail;
+        final long wrapPoint = currentTail - capacity;
+        if (headCache <= wrapPoint)
+        {
+            headCache = (long)HEAD.getAcquire(this);
+            if (headCache <= wrapPoint)
+            {
+                return false;
+            }
+        }
+
+        buffer[(int)currentTail & mask] = e;
+        TAIL.setRelease(this, currentTail + 1);
+
+        return true;
+    }
+
+    public E poll()
+    {
+        final long currentHead = head;
+        if (currentHead >= tailCache)
+        {
+            tailCache = (long)TAIL.getAcquire(this);
+            if (currentHead >= tailCache)
+            {
+                return null;
+            }
+        }
+
+        final int index = (int)currentHead & mask;
+        final E e = buffer[index];
+        buffer[index] = null;
+        HEAD.setRelease(this, currentHead + 1);
+
+        return e;
+    }
+
+    public E remove()
+    {
+        final E e = poll();
+        if (null == e)
+        {
+            throw new NoSuchElementException("Queue is empty");
+        }
+
+        return e;
+    }
+
+    public E element()
+    {
+        final E e = peek();
+        if (null == e)
+        {
+            throw new NoSuchElementException("Queue is empty");
+        }
+
+        return e;
+    }
+
+    public E peek()
+    {
+        return buffer[(int)(long)HEAD.getAcquire(this) & mask];
+    }
+
+    public int size()
+    {
+        return (int)((long)TAIL.getOpaque(this) - (long)HEAD.getOpaque(this));
+    }
+
+    public boolean isEmpty()
+    {
+        return (long)TAIL.getOpaque(this) == (long)HEAD.getOpaque(this);
+    }
+
+    public boolean contains(final Object o)
+    {
+        if (null == o)
+        {
+            return false;
+        }
+
+        for (long i = (long)HEAD.getAcquire(this), limit = (long)TAIL.getAcquire(this); i < limit; i++)
+        {
+            final E e = buffer[(int)i & mask];
+            if (o.equals(e))
+            {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    public Iterator<E> iterator()
+    {
+        throw new UnsupportedOperationException();
+    }
+
+    public Object[] toArray()
+    {
+        throw new UnsupportedOperationException();
+    }
+
+    public <T> T[] toArray(final T[] a)
+    {
+        throw new UnsupportedOperationException();
+    }
+
+    public boolean remove(final Object o)
+    {
+        throw new UnsupportedOperationException();
+    }
+
+    public boolean containsAll(final Collection<?> c)
+    {
+        for (final Object o : c)
+        {
+            if (!contains(o))
+            {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    public boolean addAll(final Collection<? extends E> c)
+    {
+        for (final E e : c)
+        {
+            add(e);
+        }
+
+        return true;
+    }
+
+    public boolean removeAll(final Collection<?> c)
+    {
+        throw new UnsupportedOperationException();
+    }
+
+    public boolean retainAll(final Collection<?> c)
+    {
+        throw new UnsupportedOperationException();
+    }
+
+    public void clear()
+    {
+        Object value;
+        do
+        {
+            value = poll();
+        }
+        while (null != value);
+    }
+}
+
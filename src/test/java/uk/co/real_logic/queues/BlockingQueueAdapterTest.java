@@ -0,0 +1,96 @@
+/*
+ * Copyright 2016 Real Logic Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.co.real_logic.queues;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static java.lang.Integer.valueOf;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertThat;
+
+public class BlockingQueueAdapterTest
+{
+    @Test
+    public void shouldTimeOutWhenEmptyOrFull() throws Exception
+    {
+        final BlockingQueueAdapter<Integer> queue =
+            new BlockingQueueAdapter<Integer>(new OneToOneConcurrentArrayQueue3<Integer>(2), 2);
+
+        assertNull(queue.poll(1, TimeUnit.MILLISECONDS));
+
+        queue.put(valueOf(1));
+        queue.put(valueOf(2));
+
+        assertThat(valueOf(queue.remainingCapacity()), is(valueOf(0)));
+        assertFalse(queue.offer(valueOf(3), 1, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void shouldDrainToCollectionUpToMaxElements() throws Exception
+    {
+        final BlockingQueueAdapter<Integer> queue =
+            new BlockingQueueAdapter<Integer>(new OneToOneConcurrentArrayQueue3<Integer>(8), 8);
+        final List<Integer> target = new ArrayList<Integer>();
+
+        for (int i = 0; i < 5; i++)
+        {
+            queue.put(valueOf(i));
+        }
+
+        assertThat(valueOf(queue.drainTo(target, 3)), is(valueOf(3)));
+        assertThat(target.get(2), is(valueOf(2)));
+        assertThat(valueOf(queue.size()), is(valueOf(2)));
+    }
+
+    @Test
+    public void shouldNotLoseWakeupsWhenBothSidesBlock() throws Exception
+    {
+        final int repetitions = 200 * 1000;
+        final BlockingQueueAdapter<Integer> queue =
+            new BlockingQueueAdapter<Integer>(new OneToOneConcurrentArrayQueue3<Integer>(4), 4);
+
+        final Thread producer = new Thread(
+            () ->
+            {
+                try
+                {
+                    for (int i = 0; i < repetitions; i++)
+                    {
+                        queue.put(valueOf(i));
+                    }
+                }
+                catch (final InterruptedException ex)
+                {
+                    Thread.currentThread().interrupt();
+                }
+            });
+        producer.start();
+
+        for (int i = 0; i < repetitions; i++)
+        {
+            assertThat(queue.take(), is(valueOf(i)));
+        }
+
+        producer.join();
+        assertNull(queue.poll());
+    }
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright 2016 Real Logic Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.co.real_logic.queues;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.List;
+
+import static java.lang.Integer.valueOf;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+public class BroadcastReceiverTest
+{
+    private static final int CAPACITY = 1024;
+    private static final int MSG_TYPE_ID = 3;
+
+    private final BroadcastTransmitter transmitter = new BroadcastTransmitter(CAPACITY);
+    private final byte[] message = new byte[8];
+    private final ByteBuffer messageBuffer = ByteBuffer.wrap(message).order(ByteOrder.nativeOrder());
+    private final List<Long> received = new ArrayList<Long>();
+    private final MessageHandler handler = (msgTypeId, buffer, index, length) -> received.add(buffer.getLong(index));
+
+    @Test
+    public void shouldDeliverEveryMessageToEachReceiver()
+    {
+        final BroadcastReceiver receiverOne = transmitter.newReceiver();
+        final BroadcastReceiver receiverTwo = transmitter.newReceiver();
+
+        for (long i = 0; i < 10; i++)
+        {
+            transmit(i);
+        }
+
+        while (0 != receiverOne.receive(handler))
+        {
+        }
+        while (0 != receiverTwo.receive(handler))
+        {
+        }
+
+        assertThat(valueOf(received.size()), is(valueOf(20)));
+        for (int i = 0; i < 10; i++)
+        {
+            assertThat(received.get(i), is(Long.valueOf(i)));
+            assertThat(received.get(10 + i), is(Long.valueOf(i)));
+        }
+        assertThat(Long.valueOf(receiverOne.lappedCount()), is(Long.valueOf(0)));
+    }
+
+    @Test
+    public void shouldSkipToLatestWhenLappedAcrossWrap()
+    {
+        final BroadcastReceiver receiver = transmitter.newReceiver();
+        final long count = 3 * CAPACITY / 16 + 5;
+        for (long i = 0; i < count; i++)
+        {
+            transmit(i);
+        }
+
+        while (0 != receiver.receive(handler))
+        {
+        }
+
+        assertTrue(receiver.lappedCount() > 0);
+        assertThat(received.get(0), is(Long.valueOf(count - 1)));
+        assertThat(valueOf(received.size()), is(valueOf(1)));
+    }
+
+    private void transmit(final long value)
+    {
+        messageBuffer.putLong(0, value);
+        transmitter.transmit(MSG_TYPE_ID, message, 0, message.length);
+    }
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright 2016 Real Logic Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.co.real_logic.queues;
+
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+public class CacheLineLayoutTest
+{
+    private final PrintStream out = new PrintStream(new ByteArrayOutputStream());
+
+    @Test
+    public void shouldPadBothSidesOfPaddedAtomicLong()
+    {
+        assertTrue(CacheLineLayout.report(PaddedAtomicLong.class, out));
+    }
+
+    @Test
+    public void shouldPadBothSidesOfPaddedLong()
+    {
+        assertTrue(CacheLineLayout.report(OneToOneConcurrentArrayQueue3.PaddedLong.class, out));
+    }
+
+    @Test
+    public void shouldReportUnpaddedHotField()
+    {
+        assertFalse(CacheLineLayout.report(Unpadded.class, out));
+    }
+
+    @Test
+    public void shouldReportAdjacentFieldsOfDifferentOwners()
+    {
+        assertFalse(CacheLineLayout.report(AdjacentHeadTail.class, out));
+    }
+
+    @Test
+    public void shouldAllowAdjacentFieldsOfSameOwner()
+    {
+        assertTrue(CacheLineLayout.report(AdjacentHeadTail.class, out, "head,tail"));
+    }
+
+    @Test
+    public void shouldFollowReferencesToPaddedValues()
+    {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+        assertTrue(CacheLineLayout.report(OneToOneConcurrentArrayQueue3.class, new PrintStream(bytes, true)));
+        assertThat(bytes.toString(), containsString("head.value"));
+        assertThat(bytes.toString(), containsString("tail.value"));
+    }
+
+    static class Unpadded
+    {
+        long value;
+    }
+
+    static class AdjacentHeadTailPadding1
+    {
+        long p01, p02, p03, p04, p05, p06, p07, p08;
+    }
+
+    static class AdjacentHeadTailValues extends AdjacentHeadTailPadding1
+    {
+        volatile long head;
+        volatile long tail;
+    }
+
+    static class AdjacentHeadTail extends AdjacentHeadTailValues
+    {
+        long p11, p12, p13, p14, p15, p16, p17, p18;
+    }
+}
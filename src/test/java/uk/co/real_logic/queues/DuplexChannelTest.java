@@ -0,0 +1,167 @@
+/*
+ * Copyright 2016 Real Logic Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.co.real_logic.queues;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.List;
+
+import static java.lang.Integer.valueOf;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+public class DuplexChannelTest
+{
+    private static final int REQUEST_TYPE_ID = 1;
+    private static final int RESPONSE_TYPE_ID = 2;
+
+    private final DuplexChannel channel = new DuplexChannel(1024, 4);
+    private final byte[] message = new byte[4];
+    private final List<String> completions = new ArrayList<>();
+    private final CorrelatedMessageHandler echoServer =
+        (correlationId, msgTypeId, buffer, index, length) ->
+        {
+            for (int i = 0; i < length; i++)
+            {
+                message[i] = buffer.get(index + i);
+            }
+
+            assertTrue(channel.respond(correlationId, RESPONSE_TYPE_ID, message, 0, length));
+        };
+
+    @Test
+    public void shouldCompleteCallsByCallbackAndByPolling()
+    {
+        final long callbackId = channel.call(REQUEST_TYPE_ID, encode(10), 0, 4, recorder("callback"));
+        final long polledId = channel.call(REQUEST_TYPE_ID, encode(20), 0, 4);
+
+        assertThat(valueOf(channel.pollRequests(echoServer, Integer.MAX_VALUE)), is(valueOf(2)));
+        assertThat(valueOf(channel.pollResponses(recorder("polled"), Integer.MAX_VALUE)), is(valueOf(2)));
+
+        assertThat(completions.toString(), is("[callback:" + callbackId + "=10, polled:" + polledId + "=20]"));
+        assertFalse(channel.isPending(callbackId));
+        assertThat(valueOf(channel.pendingCalls()), is(valueOf(0)));
+    }
+
+    @Test
+    public void shouldDiscardResponseToCancelledCall()
+    {
+        final long correlationId = channel.call(REQUEST_TYPE_ID, encode(1), 0, 4);
+
+        assertTrue(channel.cancel(correlationId));
+        channel.pollRequests(echoServer, Integer.MAX_VALUE);
+
+        assertThat(valueOf(channel.pollResponses(recorder("polled"), Integer.MAX_VALUE)), is(valueOf(1)));
+        assertTrue(completions.isEmpty());
+    }
+
+    @Test
+    public void shouldRejectCallWhenTooManyArePending()
+    {
+        for (int i = 0; i < 4; i++)
+        {
+            assertTrue(DuplexChannel.NULL_CORRELATION_ID != channel.call(REQUEST_TYPE_ID, encode(i), 0, 4));
+        }
+
+        assertThat(Long.valueOf(channel.call(REQUEST_TYPE_ID, encode(4), 0, 4)),
+                   is(Long.valueOf(DuplexChannel.NULL_CORRELATION_ID)));
+    }
+
+    @Test
+    public void shouldMatchResponsesWithServerOnAnotherThread() throws Exception
+    {
+        final int calls = 100 * 1000;
+        final DuplexChannel channel = new DuplexChannel(64 * 1024, 64);
+        final byte[] response = new byte[8];
+        final Thread server = new Thread(
+            () ->
+            {
+                final ByteBuffer responseBuffer = ByteBuffer.wrap(response).order(ByteOrder.nativeOrder());
+                final CorrelatedMessageHandler handler =
+                    (correlationId, msgTypeId, buffer, index, length) ->
+                    {
+                        responseBuffer.putLong(0, buffer.getLong(index) * 2);
+                        while (!channel.respond(correlationId, RESPONSE_TYPE_ID, response, 0, 8))
+                        {
+                            Thread.yield();
+                        }
+                    };
+
+                int served = 0;
+                while (served < calls)
+                {
+                    final int read = channel.pollRequests(handler, 16);
+                    if (0 == read)
+                    {
+                        Thread.yield();
+                    }
+
+                    served += read;
+                }
+            });
+        server.start();
+
+        final long[] expectedByCorrelationId = new long[calls];
+        final int[] completed = new int[1];
+        final CorrelatedMessageHandler callback =
+            (correlationId, msgTypeId, buffer, index, length) ->
+            {
+                assertThat(Long.valueOf(buffer.getLong(index)), is(Long.valueOf(expectedByCorrelationId[(int)correlationId])));
+                completed[0]++;
+            };
+
+        final byte[] request = new byte[8];
+        final ByteBuffer requestBuffer = ByteBuffer.wrap(request).order(ByteOrder.nativeOrder());
+        int sent = 0;
+        while (completed[0] < calls)
+        {
+            if (sent < calls)
+            {
+                requestBuffer.putLong(0, sent * 7L);
+                final long correlationId = channel.call(REQUEST_TYPE_ID, request, 0, 8, callback);
+                if (DuplexChannel.NULL_CORRELATION_ID != correlationId)
+                {
+                    expectedByCorrelationId[(int)correlationId] = sent * 14L;
+                    sent++;
+                }
+            }
+
+            if (0 == channel.pollResponses(callback, 16))
+            {
+                Thread.yield();
+            }
+        }
+
+        server.join();
+        assertThat(valueOf(channel.pendingCalls()), is(valueOf(0)));
+    }
+
+    private byte[] encode(final int value)
+    {
+        return ByteBuffer.allocate(4).order(ByteOrder.nativeOrder()).putInt(0, value).array();
+    }
+
+    private CorrelatedMessageHandler recorder(final String name)
+    {
+        return (correlationId, msgTypeId, buffer, index, length) ->
+            completions.add(name + ":" + correlationId + "=" + buffer.getInt(index));
+    }
+}
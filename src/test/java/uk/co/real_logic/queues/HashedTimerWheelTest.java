@@ -0,0 +1,135 @@
+/*
+ * Copyright 2016 Real Logic Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.co.real_logic.queues;
+
+import org.junit.Test;
+
+import static java.lang.Integer.valueOf;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+public class HashedTimerWheelTest
+{
+    private static final long RESOLUTION_NS = 1024;
+    private static final long NULL_VALUE = -1;
+
+    private final OneToOneConcurrentLongQueue expiryQueue = new OneToOneConcurrentLongQueue(4, NULL_VALUE);
+    private final HashedTimerWheel wheel = new HashedTimerWheel(expiryQueue, 0, RESOLUTION_NS, 8, 2);
+
+    @Test
+    public void shouldExpireTimerOnlyOnceDeadlineHasPassed()
+    {
+        final long timerId = wheel.scheduleTimer(5 * RESOLUTION_NS);
+
+        assertThat(valueOf(pollUntil(5 * RESOLUTION_NS - 1)), is(valueOf(0)));
+        assertThat(valueOf(pollUntil(5 * RESOLUTION_NS)), is(valueOf(1)));
+        assertThat(Long.valueOf(expiryQueue.pollLong()), is(Long.valueOf(timerId)));
+        assertThat(Long.valueOf(wheel.timerCount()), is(Long.valueOf(0)));
+    }
+
+    @Test
+    public void shouldExpireTimerBeyondOneRevolution()
+    {
+        final long timerId = wheel.scheduleTimer(20 * RESOLUTION_NS);
+
+        assertThat(valueOf(pollUntil(19 * RESOLUTION_NS)), is(valueOf(0)));
+        assertThat(valueOf(pollUntil(21 * RESOLUTION_NS)), is(valueOf(1)));
+        assertThat(Long.valueOf(expiryQueue.pollLong()), is(Long.valueOf(timerId)));
+    }
+
+    @Test
+    public void shouldNotExpireCancelledTimer()
+    {
+        final long timerId = wheel.scheduleTimer(3 * RESOLUTION_NS);
+
+        assertTrue(wheel.cancelTimer(timerId));
+        assertFalse(wheel.cancelTimer(timerId));
+        assertThat(valueOf(pollUntil(10 * RESOLUTION_NS)), is(valueOf(0)));
+        assertThat(Long.valueOf(expiryQueue.pollLong()), is(Long.valueOf(NULL_VALUE)));
+    }
+
+    @Test
+    public void shouldNotCancelNewerTimerInReusedSlotWithStaleId()
+    {
+        final long staleTimerId = wheel.scheduleTimer(3 * RESOLUTION_NS);
+        assertTrue(wheel.cancelTimer(staleTimerId));
+
+        final long timerId = wheel.scheduleTimer(3 * RESOLUTION_NS);
+        assertTrue(timerId != staleTimerId);
+        assertThat(Long.valueOf((int)timerId), is(Long.valueOf((int)staleTimerId)));
+
+        assertFalse(wheel.cancelTimer(staleTimerId));
+        assertThat(valueOf(pollUntil(3 * RESOLUTION_NS)), is(valueOf(1)));
+        assertThat(Long.valueOf(expiryQueue.pollLong()), is(Long.valueOf(timerId)));
+    }
+
+    @Test
+    public void shouldRejectNegativeTimerId()
+    {
+        wheel.scheduleTimer(3 * RESOLUTION_NS);
+
+        assertFalse(wheel.cancelTimer(NULL_VALUE));
+        assertFalse(wheel.cancelTimer(Long.MIN_VALUE));
+        assertThat(Long.valueOf(wheel.timerCount()), is(Long.valueOf(1)));
+    }
+
+    @Test
+    public void shouldIncreaseCapacityWhenSpokeIsFull()
+    {
+        final long[] timerIds = new long[5];
+        for (int i = 0; i < timerIds.length; i++)
+        {
+            timerIds[i] = wheel.scheduleTimer(2 * RESOLUTION_NS);
+        }
+
+        assertThat(valueOf(wheel.tickAllocation()), is(valueOf(8)));
+        assertTrue(wheel.cancelTimer(timerIds[0]));
+        assertThat(valueOf(pollUntil(3 * RESOLUTION_NS)), is(valueOf(4)));
+    }
+
+    @Test
+    public void shouldKeepTimersWhenExpiryQueueIsFull()
+    {
+        for (int i = 0; i < 6; i++)
+        {
+            wheel.scheduleTimer(RESOLUTION_NS);
+        }
+
+        assertThat(valueOf(pollUntil(2 * RESOLUTION_NS)), is(valueOf(4)));
+        assertThat(Long.valueOf(wheel.timerCount()), is(Long.valueOf(2)));
+
+        while (NULL_VALUE != expiryQueue.pollLong())
+        {
+            // discard delivered ids to make space
+        }
+
+        assertThat(valueOf(pollUntil(2 * RESOLUTION_NS)), is(valueOf(2)));
+        assertThat(Long.valueOf(wheel.timerCount()), is(Long.valueOf(0)));
+    }
+
+    private int pollUntil(final long nowNs)
+    {
+        int expired = 0;
+        for (int i = 0; i < 64; i++)
+        {
+            expired += wheel.poll(nowNs, Integer.MAX_VALUE);
+        }
+
+        return expired;
+    }
+}
@@ -0,0 +1,128 @@
+/*
+ * Copyright 2016 Real Logic Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.co.real_logic.queues;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.List;
+
+import static java.lang.Integer.valueOf;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+public class IpcOneToOneRingBufferTest
+{
+    private static final int CAPACITY = 128;
+    private static final int MSG_TYPE_ID = 7;
+
+    private final File file = File.createTempFile("ipc-ring-buffer-test", ".ipc");
+    private final List<String> messages = new ArrayList<String>();
+    private final MessageHandler handler =
+        (msgTypeId, buffer, index, length) ->
+        {
+            assertThat(valueOf(msgTypeId), is(valueOf(MSG_TYPE_ID)));
+            final byte[] bytes = new byte[length];
+            for (int i = 0; i < length; i++)
+            {
+                bytes[i] = buffer.get(index + i);
+            }
+            messages.add(new String(bytes));
+        };
+
+    public IpcOneToOneRingBufferTest() throws Exception
+    {
+    }
+
+    @After
+    public void after()
+    {
+        file.delete();
+    }
+
+    @Test
+    public void shouldReadThroughAttachedMappingWhatWasWrittenThroughCreatedMapping() throws Exception
+    {
+        final IpcOneToOneRingBuffer producer = IpcOneToOneRingBuffer.create(file, CAPACITY);
+        final IpcOneToOneRingBuffer consumer = IpcOneToOneRingBuffer.attach(file);
+
+        assertThat(Long.valueOf(file.length()), is(Long.valueOf(CAPACITY + IpcOneToOneRingBuffer.TRAILER_LENGTH)));
+        assertThat(valueOf(consumer.capacity()), is(valueOf(CAPACITY)));
+
+        assertTrue(write(producer, "a"));
+        assertTrue(write(producer, "abcdefghij"));
+
+        assertThat(valueOf(consumer.size()), is(valueOf(16 + 24)));
+        assertThat(valueOf(consumer.read(handler, 10)), is(valueOf(2)));
+        assertThat(messages.toString(), is("[a, abcdefghij]"));
+        assertThat(valueOf(producer.size()), is(valueOf(0)));
+    }
+
+    @Test
+    public void shouldInsertPaddingAtWrapAndContinueFromStart() throws Exception
+    {
+        final IpcOneToOneRingBuffer producer = IpcOneToOneRingBuffer.create(file, CAPACITY);
+        final IpcOneToOneRingBuffer consumer = IpcOneToOneRingBuffer.attach(file);
+        final String message = "0123456789abcdef";
+
+        for (int i = 0; i < 5; i++)
+        {
+            assertTrue(write(producer, message));
+        }
+
+        assertFalse(write(producer, message));
+        assertThat(valueOf(consumer.read(handler, 2)), is(valueOf(2)));
+        assertTrue(write(producer, message));
+        assertThat(valueOf(producer.size()), is(valueOf(3 * 24 + 8 + 24)));
+
+        int readCount = 0;
+        int count;
+        while ((count = consumer.read(handler, Integer.MAX_VALUE)) > 0)
+        {
+            readCount += count;
+        }
+
+        assertThat(valueOf(readCount), is(valueOf(4)));
+        assertThat(valueOf(messages.size()), is(valueOf(6)));
+        for (final String m : messages)
+        {
+            assertThat(m, is(message));
+        }
+        assertThat(valueOf(consumer.size()), is(valueOf(0)));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void shouldRejectAttachingToFileWhichIsNotRingBuffer() throws Exception
+    {
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw"))
+        {
+            raf.setLength(CAPACITY);
+        }
+
+        IpcOneToOneRingBuffer.attach(file);
+    }
+
+    private static boolean write(final IpcOneToOneRingBuffer ringBuffer, final String message)
+    {
+        final byte[] bytes = message.getBytes();
+        return ringBuffer.write(MSG_TYPE_ID, bytes, 0, bytes.length);
+    }
+}
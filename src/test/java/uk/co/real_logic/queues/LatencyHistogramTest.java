@@ -0,0 +1,69 @@
+/*
+ * Copyright 2016 Real Logic Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.co.real_logic.queues;
+
+import org.junit.Test;
+
+import static java.lang.Long.valueOf;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+public class LatencyHistogramTest
+{
+    @Test
+    public void shouldRecordSmallValuesExactly()
+    {
+        for (int value = 0; value < LatencyHistogram.SUB_BUCKET_COUNT; value++)
+        {
+            final int index = LatencyHistogram.countsIndex(value);
+            assertThat(valueOf(LatencyHistogram.lowestValueAt(index)), is(valueOf(value)));
+            assertThat(valueOf(LatencyHistogram.highestValueAt(index)), is(valueOf(value)));
+        }
+    }
+
+    @Test
+    public void shouldBucketLargeValuesWithinPrecision()
+    {
+        for (long value = LatencyHistogram.SUB_BUCKET_COUNT; value < 1L << 40; value = value * 3 / 2)
+        {
+            final int index = LatencyHistogram.countsIndex(value);
+            final long lowest = LatencyHistogram.lowestValueAt(index);
+            final long highest = LatencyHistogram.highestValueAt(index);
+
+            assertTrue(lowest <= value && value <= highest);
+            assertTrue((highest - lowest) * LatencyHistogram.SUB_BUCKET_HALF_COUNT <= lowest);
+        }
+    }
+
+    @Test
+    public void shouldReportPercentilesAndMax()
+    {
+        final LatencyHistogram histogram = new LatencyHistogram(1000 * 1000);
+        for (long value = 1; value <= 100; value++)
+        {
+            histogram.recordValue(value);
+        }
+        histogram.recordValue(5 * 1000 * 1000);
+
+        assertThat(valueOf(histogram.totalCount()), is(valueOf(101)));
+        assertThat(valueOf(histogram.minValue()), is(valueOf(1)));
+        assertThat(valueOf(histogram.valueAtPercentile(50.0)), is(valueOf(51)));
+        assertThat(valueOf(histogram.valueAtPercentile(99.0)), is(valueOf(100)));
+        assertThat(valueOf(histogram.valueAtPercentile(100.0)), is(valueOf(5 * 1000 * 1000)));
+        assertThat(valueOf(histogram.maxValue()), is(valueOf(5 * 1000 * 1000)));
+    }
+}
@@ -0,0 +1,118 @@
+/*
+ * Copyright 2016 Real Logic Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.co.real_logic.queues;
+
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static java.lang.Integer.valueOf;
+import static java.lang.Long.valueOf;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+public class ManyToManyConcurrentArrayQueueTest
+{
+    @Test
+    public void shouldRejectOfferWhenFullAndAcceptAfterPoll()
+    {
+        final ManyToManyConcurrentArrayQueue<Integer> queue = new ManyToManyConcurrentArrayQueue<Integer>(4);
+
+        for (int i = 0; i < 4; i++)
+        {
+            assertTrue(queue.offer(valueOf(i)));
+        }
+
+        assertFalse(queue.offer(valueOf(4)));
+        assertThat(queue.poll(), is(valueOf(0)));
+        assertTrue(queue.offer(valueOf(4)));
+        assertThat(valueOf(queue.size()), is(valueOf(4)));
+
+        for (int i = 1; i <= 4; i++)
+        {
+            assertThat(queue.poll(), is(valueOf(i)));
+        }
+
+        assertNull(queue.poll());
+    }
+
+    @Test
+    public void shouldDeliverEveryElementExactlyOnceToManyConsumers() throws Exception
+    {
+        final int producerCount = 2;
+        final int consumerCount = 2;
+        final int repetitions = 100 * 1000;
+        final long total = (long)producerCount * repetitions;
+        final ManyToManyConcurrentArrayQueue<Integer> queue = new ManyToManyConcurrentArrayQueue<Integer>(64);
+        final AtomicLong consumedCount = new AtomicLong();
+        final AtomicLong consumedSum = new AtomicLong();
+
+        final Thread[] threads = new Thread[producerCount + consumerCount];
+        for (int p = 0; p < producerCount; p++)
+        {
+            threads[p] = new Thread(
+                () ->
+                {
+                    for (int i = 0; i < repetitions; i++)
+                    {
+                        final Integer value = valueOf(i);
+                        while (!queue.offer(value))
+                        {
+                            Thread.yield();
+                        }
+                    }
+                });
+        }
+
+        for (int c = producerCount; c < threads.length; c++)
+        {
+            threads[c] = new Thread(
+                () ->
+                {
+                    while (consumedCount.get() < total)
+                    {
+                        final Integer value = queue.poll();
+                        if (null == value)
+                        {
+                            Thread.yield();
+                            continue;
+                        }
+
+                        consumedSum.addAndGet(value.intValue());
+                        consumedCount.incrementAndGet();
+                    }
+                });
+        }
+
+        for (final Thread thread : threads)
+        {
+            thread.start();
+        }
+
+        for (final Thread thread : threads)
+        {
+            thread.join();
+        }
+
+        final long expectedSum = producerCount * ((long)repetitions * (repetitions - 1) / 2);
+        assertThat(valueOf(consumedCount.get()), is(valueOf(total)));
+        assertThat(valueOf(consumedSum.get()), is(valueOf(expectedSum)));
+        assertTrue(queue.isEmpty());
+    }
+}
@@ -0,0 +1,111 @@
+/*
+ * Copyright 2016 Real Logic Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.co.real_logic.queues;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static java.lang.Integer.valueOf;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+public class ManyToOneConcurrentArrayQueueTest
+{
+    @Test
+    public void shouldRoundCapacityUpToPowerOfTwo()
+    {
+        final ManyToOneConcurrentArrayQueue<Integer> queue = new ManyToOneConcurrentArrayQueue<Integer>(5);
+
+        for (int i = 0; i < 8; i++)
+        {
+            assertTrue(queue.offer(valueOf(i)));
+        }
+
+        assertFalse(queue.offer(valueOf(8)));
+        assertThat(valueOf(queue.size()), is(valueOf(8)));
+    }
+
+    @Test
+    public void shouldPollInOfferOrderAcrossWrap()
+    {
+        final ManyToOneConcurrentArrayQueue<Integer> queue = new ManyToOneConcurrentArrayQueue<Integer>(4);
+
+        for (int i = 0; i < 10; i++)
+        {
+            assertTrue(queue.offer(valueOf(i)));
+            assertThat(queue.poll(), is(valueOf(i)));
+        }
+
+        assertNull(queue.poll());
+        assertTrue(queue.isEmpty());
+    }
+
+    @Test
+    public void shouldPreserveOrderPerProducerWhenContended() throws Exception
+    {
+        final int producerCount = 3;
+        final int repetitions = 100 * 1000;
+        final ManyToOneConcurrentArrayQueue<Integer> queue = new ManyToOneConcurrentArrayQueue<Integer>(64);
+
+        final Thread[] producers = new Thread[producerCount];
+        for (int p = 0; p < producerCount; p++)
+        {
+            final int producerId = p;
+            producers[p] = new Thread(
+                () ->
+                {
+                    for (int i = 0; i < repetitions; i++)
+                    {
+                        final Integer value = valueOf(producerId * repetitions + i);
+                        while (!queue.offer(value))
+                        {
+                            Thread.yield();
+                        }
+                    }
+                });
+            producers[p].start();
+        }
+
+        final int[] lastSeen = new int[producerCount];
+        Arrays.fill(lastSeen, -1);
+        for (int count = 0, total = producerCount * repetitions; count < total;)
+        {
+            final Integer value = queue.poll();
+            if (null == value)
+            {
+                Thread.yield();
+                continue;
+            }
+
+            final int producerId = value.intValue() / repetitions;
+            final int sequence = value.intValue() % repetitions;
+            assertThat(valueOf(sequence), is(valueOf(lastSeen[producerId] + 1)));
+            lastSeen[producerId] = sequence;
+            count++;
+        }
+
+        for (final Thread producer : producers)
+        {
+            producer.join();
+        }
+
+        assertTrue(queue.isEmpty());
+    }
+}
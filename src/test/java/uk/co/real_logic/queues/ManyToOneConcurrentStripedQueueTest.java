@@ -0,0 +1,221 @@
+/*
+ * Copyright 2016 Real Logic Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.co.real_logic.queues;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+
+import static java.lang.Integer.valueOf;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+public class ManyToOneConcurrentStripedQueueTest
+{
+    @Test
+    public void shouldBindLaneToOfferingThread() throws Exception
+    {
+        final ManyToOneConcurrentStripedQueue<Integer> queue = new ManyToOneConcurrentStripedQueue<Integer>(4, 2);
+
+        for (int i = 0; i < 4; i++)
+        {
+            assertTrue(queue.offer(valueOf(i)));
+        }
+
+        assertFalse(queue.offer(valueOf(4)));
+
+        final Thread producer = new Thread(() -> queue.offer(valueOf(5)));
+        producer.start();
+        producer.join();
+
+        assertThat(valueOf(queue.laneCount()), is(valueOf(2)));
+        assertThat(valueOf(queue.size()), is(valueOf(5)));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void shouldRejectProducersBeyondMaxLanes() throws Exception
+    {
+        final ManyToOneConcurrentStripedQueue<Integer> queue = new ManyToOneConcurrentStripedQueue<Integer>(4, 1);
+        final CountDownLatch offered = new CountDownLatch(1);
+        final CountDownLatch finish = new CountDownLatch(1);
+
+        final Thread producer = new Thread(
+            () ->
+            {
+                queue.offer(valueOf(0));
+                offered.countDown();
+                awaitUninterruptibly(finish);
+            });
+        producer.start();
+        offered.await();
+
+        try
+        {
+            queue.offer(valueOf(1));
+        }
+        finally
+        {
+            finish.countDown();
+            producer.join();
+        }
+    }
+
+    @Test
+    public void shouldReuseDrainedLaneOfTerminatedProducer() throws Exception
+    {
+        final ManyToOneConcurrentStripedQueue<Integer> queue = new ManyToOneConcurrentStripedQueue<Integer>(4, 1);
+
+        final Thread producer = new Thread(() -> queue.offer(valueOf(0)));
+        producer.start();
+        producer.join();
+
+        assertThat(queue.poll(), is(valueOf(0)));
+        assertTrue(queue.offer(valueOf(1)));
+        assertThat(valueOf(queue.laneCount()), is(valueOf(1)));
+        assertThat(queue.poll(), is(valueOf(1)));
+    }
+
+    @Test
+    public void shouldNotReuseLaneOfTerminatedProducerUntilDrained() throws Exception
+    {
+        final ManyToOneConcurrentStripedQueue<Integer> queue = new ManyToOneConcurrentStripedQueue<Integer>(4, 2);
+
+        final Thread producer = new Thread(() -> queue.offer(valueOf(0)));
+        producer.start();
+        producer.join();
+
+        assertTrue(queue.offer(valueOf(1)));
+        assertThat(valueOf(queue.laneCount()), is(valueOf(2)));
+        assertThat(valueOf(queue.size()), is(valueOf(2)));
+    }
+
+    @Test
+    public void shouldReclaimDrainedLanesOfTerminatedProducers() throws Exception
+    {
+        final ManyToOneConcurrentStripedQueue<Integer> queue = new ManyToOneConcurrentStripedQueue<Integer>(4, 2);
+        queue.offer(valueOf(0));
+
+        final Thread producer = new Thread(() -> queue.offer(valueOf(1)));
+        producer.start();
+        producer.join();
+
+        assertThat(valueOf(queue.reclaimLanes()), is(valueOf(0)));
+        assertThat(queue.poll(), is(valueOf(0)));
+        assertThat(queue.poll(), is(valueOf(1)));
+
+        assertThat(valueOf(queue.reclaimLanes()), is(valueOf(1)));
+        assertThat(valueOf(queue.laneCount()), is(valueOf(1)));
+        assertTrue(queue.offer(valueOf(2)));
+        assertThat(queue.poll(), is(valueOf(2)));
+    }
+
+    @Test
+    public void shouldRotateAcrossLanesWhenPolling() throws Exception
+    {
+        final ManyToOneConcurrentStripedQueue<Integer> queue = new ManyToOneConcurrentStripedQueue<Integer>(4, 2);
+
+        queue.offer(valueOf(0));
+        queue.offer(valueOf(1));
+
+        final Thread producer = new Thread(
+            () ->
+            {
+                queue.offer(valueOf(10));
+                queue.offer(valueOf(11));
+            });
+        producer.start();
+        producer.join();
+
+        assertThat(queue.poll(), is(valueOf(0)));
+        assertThat(queue.poll(), is(valueOf(10)));
+        assertThat(queue.poll(), is(valueOf(1)));
+        assertThat(queue.poll(), is(valueOf(11)));
+        assertNull(queue.poll());
+        assertTrue(queue.isEmpty());
+    }
+
+    @Test
+    public void shouldPreserveOrderPerProducerWhenContended() throws Exception
+    {
+        final int producerCount = 3;
+        final int repetitions = 100 * 1000;
+        final ManyToOneConcurrentStripedQueue<Integer> queue =
+            new ManyToOneConcurrentStripedQueue<Integer>(64, producerCount);
+
+        final Thread[] producers = new Thread[producerCount];
+        for (int p = 0; p < producerCount; p++)
+        {
+            final int producerId = p;
+            producers[p] = new Thread(
+                () ->
+                {
+                    for (int i = 0; i < repetitions; i++)
+                    {
+                        final Integer value = valueOf(producerId * repetitions + i);
+                        while (!queue.offer(value))
+                        {
+                            Thread.yield();
+                        }
+                    }
+                });
+            producers[p].start();
+        }
+
+        final int[] lastSeen = new int[producerCount];
+        Arrays.fill(lastSeen, -1);
+        for (int count = 0, total = producerCount * repetitions; count < total;)
+        {
+            final Integer value = queue.poll();
+            if (null == value)
+            {
+                Thread.yield();
+                continue;
+            }
+
+            final int producerId = value.intValue() / repetitions;
+            final int sequence = value.intValue() % repetitions;
+            assertThat(valueOf(sequence), is(valueOf(lastSeen[producerId] + 1)));
+            lastSeen[producerId] = sequence;
+            count++;
+        }
+
+        for (final Thread producer : producers)
+        {
+            producer.join();
+        }
+
+        assertTrue(queue.isEmpty());
+    }
+
+    private static void awaitUninterruptibly(final CountDownLatch latch)
+    {
+        while (true)
+        {
+            try
+            {
+                latch.await();
+                return;
+            }
+            catch (final InterruptedException ignore)
+            {
+            }
+        }
+    }
+}
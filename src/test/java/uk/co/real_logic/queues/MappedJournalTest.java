@@ -0,0 +1,187 @@
+/*
+ * Copyright 2016 Real Logic Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.co.real_logic.queues;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+import static java.lang.Integer.valueOf;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+public class MappedJournalTest
+{
+    private static final int SEGMENT_LENGTH = 64;
+    private static final int MSG_TYPE_ID = 7;
+
+    private final File directory = Files.createTempDirectory("mapped-journal-test").toFile();
+    private final ByteBuffer message = ByteBuffer.allocate(16).order(ByteOrder.nativeOrder());
+    private final List<Integer> replayed = new ArrayList<>();
+    private final MessageHandler handler =
+        (msgTypeId, buffer, index, length) ->
+        {
+            assertThat(valueOf(msgTypeId), is(valueOf(MSG_TYPE_ID)));
+            replayed.add(valueOf(buffer.getInt(index)));
+        };
+
+    public MappedJournalTest() throws Exception
+    {
+    }
+
+    @After
+    public void after()
+    {
+        final File[] files = directory.listFiles();
+        if (null != files)
+        {
+            for (final File file : files)
+            {
+                file.delete();
+            }
+        }
+
+        directory.delete();
+    }
+
+    @Test
+    public void shouldReplayAcrossSegmentsFromAnyRecordPosition() throws Exception
+    {
+        try (MappedJournal journal = MappedJournal.open(directory, SEGMENT_LENGTH))
+        {
+            final long[] positions = new long[10];
+            for (int i = 0; i < positions.length; i++)
+            {
+                positions[i] = append(journal, i, 12);
+            }
+
+            assertThat(valueOf(directory.list().length), is(valueOf(5)));
+
+            long position = journal.replay(positions[3], handler, 4);
+            assertThat(replayed.toString(), is("[3, 4, 5, 6]"));
+            assertThat(Long.valueOf(position), is(Long.valueOf(positions[7])));
+
+            position = journal.replay(position, handler, Integer.MAX_VALUE);
+            assertThat(replayed.toString(), is("[3, 4, 5, 6, 7, 8, 9]"));
+            assertThat(Long.valueOf(position), is(Long.valueOf(journal.position())));
+        }
+    }
+
+    @Test
+    public void shouldRecoverAppendPositionOnReopen() throws Exception
+    {
+        final long position;
+        try (MappedJournal journal = MappedJournal.open(directory, SEGMENT_LENGTH))
+        {
+            for (int i = 0; i < 5; i++)
+            {
+                append(journal, i, 4);
+            }
+
+            position = journal.position();
+        }
+
+        try (MappedJournal journal = MappedJournal.open(directory, SEGMENT_LENGTH))
+        {
+            assertThat(Long.valueOf(journal.position()), is(Long.valueOf(position)));
+            append(journal, 5, 4);
+
+            journal.replay(0, handler, Integer.MAX_VALUE);
+            assertThat(replayed.toString(), is("[0, 1, 2, 3, 4, 5]"));
+        }
+    }
+
+    @Test
+    public void shouldRecoverAppendPositionPastPreallocatedSegment() throws Exception
+    {
+        final long position;
+        try (MappedJournal journal = MappedJournal.open(directory, SEGMENT_LENGTH))
+        {
+            final JournalFlusher flusher = new JournalFlusher(journal, 0, 0);
+            for (int i = 0; i < 5; i++)
+            {
+                append(journal, i, 12);
+            }
+
+            assertThat(Integer.valueOf(flusher.doWork()), is(Integer.valueOf(2)));
+            position = journal.position();
+        }
+
+        try (MappedJournal journal = MappedJournal.open(directory, SEGMENT_LENGTH))
+        {
+            assertThat(Long.valueOf(journal.position()), is(Long.valueOf(position)));
+            append(journal, 5, 12);
+
+            journal.replay(0, handler, Integer.MAX_VALUE);
+            assertThat(replayed.toString(), is("[0, 1, 2, 3, 4, 5]"));
+        }
+    }
+
+    @Test
+    public void shouldReleaseSegmentsBehindFlushedAndReplayPositions() throws Exception
+    {
+        try (MappedJournal journal = MappedJournal.open(directory, SEGMENT_LENGTH))
+        {
+            for (int i = 0; i < 10; i++)
+            {
+                append(journal, i, 12);
+            }
+
+            assertThat(valueOf(journal.mappedSegmentCount()), is(valueOf(5)));
+
+            journal.flush(journal.position());
+            assertThat(valueOf(journal.mappedSegmentCount()), is(valueOf(1)));
+
+            final long position = journal.replay(0, handler, 3);
+            assertThat(valueOf(journal.mappedSegmentCount()), is(valueOf(2)));
+
+            journal.replay(position, handler, Integer.MAX_VALUE);
+            assertThat(replayed.toString(), is("[0, 1, 2, 3, 4, 5, 6, 7, 8, 9]"));
+            assertThat(valueOf(journal.mappedSegmentCount()), is(valueOf(1)));
+        }
+    }
+
+    @Test
+    public void shouldFlushUpToPositionInBackground() throws Exception
+    {
+        try (MappedJournal journal = MappedJournal.open(directory, SEGMENT_LENGTH))
+        {
+            final JournalFlusher flusher = new JournalFlusher(journal, Long.MAX_VALUE, 32);
+
+            append(journal, 0, 4);
+            flusher.doWork();
+            assertThat(Long.valueOf(journal.flushedPosition()), is(Long.valueOf(0)));
+
+            append(journal, 1, 12);
+            flusher.doWork();
+            assertThat(Long.valueOf(journal.flushedPosition()), is(Long.valueOf(journal.position())));
+            assertThat(Long.valueOf(flusher.flushLatencies().totalCount()), is(Long.valueOf(1)));
+        }
+    }
+
+    private long append(final MappedJournal journal, final int value, final int length)
+    {
+        message.putInt(0, value);
+
+        return journal.append(MSG_TYPE_ID, message, 0, length);
+    }
+}
@@ -0,0 +1,154 @@
+/*
+ * Copyright 2016 Real Logic Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.co.real_logic.queues;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static java.lang.Integer.valueOf;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+public class OneToOneConcurrentArrayQueue3Test
+{
+    @Test
+    public void shouldFillUpToCapacity()
+    {
+        final OneToOneConcurrentArrayQueue3<Integer> queue = new OneToOneConcurrentArrayQueue3<Integer>(4);
+        final Integer[] elements = { valueOf(0), valueOf(1), valueOf(2), valueOf(3), valueOf(4), valueOf(5) };
+
+        assertThat(valueOf(queue.fill(elements, 1, 5)), is(valueOf(4)));
+        assertThat(valueOf(queue.size()), is(valueOf(4)));
+
+        for (int i = 1; i <= 4; i++)
+        {
+            assertThat(queue.poll(), is(valueOf(i)));
+        }
+
+        assertNull(queue.poll());
+    }
+
+    @Test
+    public void shouldDrainUpToLimitInOrder()
+    {
+        final OneToOneConcurrentArrayQueue3<Integer> queue = new OneToOneConcurrentArrayQueue3<Integer>(8);
+        for (int i = 0; i < 6; i++)
+        {
+            queue.offer(valueOf(i));
+        }
+
+        final List<Integer> drained = new ArrayList<Integer>();
+        assertThat(valueOf(queue.drain(drained::add, 4)), is(valueOf(4)));
+        assertThat(valueOf(queue.drainTo(drained, 10)), is(valueOf(2)));
+
+        for (int i = 0; i < 6; i++)
+        {
+            assertThat(drained.get(i), is(valueOf(i)));
+        }
+
+        assertTrue(queue.isEmpty());
+        assertThat(valueOf(queue.drainTo(drained, 10)), is(valueOf(0)));
+    }
+
+    @Test
+    public void shouldAdvanceHeadPastElementsHandledBeforeException()
+    {
+        final OneToOneConcurrentArrayQueue3<Integer> queue = new OneToOneConcurrentArrayQueue3<Integer>(8);
+        for (int i = 0; i < 4; i++)
+        {
+            queue.offer(valueOf(i));
+        }
+
+        try
+        {
+            queue.drain(
+                (e) ->
+                {
+                    if (e.intValue() == 1)
+                    {
+                        throw new IllegalStateException();
+                    }
+                },
+                4);
+        }
+        catch (final IllegalStateException ignore)
+        {
+        }
+
+        assertThat(valueOf(queue.size()), is(valueOf(2)));
+        assertThat(queue.poll(), is(valueOf(2)));
+    }
+
+    @Test
+    public void shouldCountFailedOffersEmptyPollsAndHighWaterOccupancy()
+    {
+        final OneToOneConcurrentArrayQueue3<Integer> queue = new OneToOneConcurrentArrayQueue3<Integer>(4, true);
+
+        assertNull(queue.poll());
+        for (int i = 0; i < 5; i++)
+        {
+            queue.offer(valueOf(i));
+        }
+        queue.clear();
+
+        final OneToOneConcurrentArrayQueue3.CountersSnapshot snapshot = queue.countersSnapshot();
+        assertThat(valueOf(snapshot.capacity), is(valueOf(4)));
+        assertThat(valueOf(snapshot.size), is(valueOf(0)));
+        assertThat(Long.valueOf(snapshot.failedOffers), is(Long.valueOf(1)));
+        assertThat(Long.valueOf(snapshot.emptyPolls), is(Long.valueOf(2)));
+        assertThat(Long.valueOf(snapshot.highWaterOccupancy), is(Long.valueOf(4)));
+        assertTrue(snapshot.headCacheRefreshes > 0);
+        assertTrue(snapshot.tailCacheRefreshes > 0);
+    }
+
+    @Test
+    public void shouldSampleHighWaterOccupancyOnOffer()
+    {
+        final OneToOneConcurrentArrayQueue3<Integer> queue = new OneToOneConcurrentArrayQueue3<Integer>(16, true);
+
+        for (int i = 0; i < 3; i++)
+        {
+            queue.offer(valueOf(i));
+        }
+        queue.poll();
+        queue.offer(valueOf(3));
+
+        assertThat(Long.valueOf(queue.countersSnapshot().highWaterOccupancy), is(Long.valueOf(3)));
+        assertThat(Long.valueOf(queue.countersSnapshot().headCacheRefreshes), is(Long.valueOf(0)));
+    }
+
+    @Test
+    public void shouldNotCountWhenCountersDisabled()
+    {
+        final OneToOneConcurrentArrayQueue3<Integer> queue = new OneToOneConcurrentArrayQueue3<Integer>(4);
+
+        assertNull(queue.poll());
+        for (int i = 0; i < 5; i++)
+        {
+            queue.offer(valueOf(i));
+        }
+
+        final OneToOneConcurrentArrayQueue3.CountersSnapshot snapshot = queue.countersSnapshot();
+        assertThat(valueOf(snapshot.size), is(valueOf(4)));
+        assertThat(Long.valueOf(snapshot.failedOffers), is(Long.valueOf(0)));
+        assertThat(Long.valueOf(snapshot.emptyPolls), is(Long.valueOf(0)));
+        assertThat(Long.valueOf(snapshot.highWaterOccupancy), is(Long.valueOf(0)));
+    }
+}
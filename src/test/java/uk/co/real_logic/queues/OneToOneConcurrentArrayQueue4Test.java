@@ -0,0 +1,137 @@
+/*
+ * Copyright 2016 Real Logic Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.co.real_logic.queues;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+import static java.lang.Integer.valueOf;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+public class OneToOneConcurrentArrayQueue4Test
+{
+    @Test
+    public void shouldRoundCapacityUpToPowerOfTwo()
+    {
+        final OneToOneConcurrentArrayQueue4<Integer> queue = new OneToOneConcurrentArrayQueue4<Integer>(5);
+
+        for (int i = 0; i < 8; i++)
+        {
+            assertTrue(queue.offer(valueOf(i)));
+        }
+
+        assertFalse(queue.offer(valueOf(8)));
+        assertThat(valueOf(queue.size()), is(valueOf(8)));
+    }
+
+    @Test
+    public void shouldPollInOfferOrderAcrossWrap()
+    {
+        final OneToOneConcurrentArrayQueue4<Integer> queue = new OneToOneConcurrentArrayQueue4<Integer>(4);
+
+        for (int i = 0; i < 3; i++)
+        {
+            assertTrue(queue.offer(valueOf(i)));
+        }
+
+        for (int i = 3; i < 10; i++)
+        {
+            assertThat(queue.peek(), is(valueOf(i - 3)));
+            assertThat(queue.poll(), is(valueOf(i - 3)));
+            assertTrue(queue.offer(valueOf(i)));
+        }
+
+        assertThat(valueOf(queue.size()), is(valueOf(3)));
+        queue.clear();
+        assertNull(queue.poll());
+        assertTrue(queue.isEmpty());
+    }
+
+    @Test
+    public void shouldFindContainedElements()
+    {
+        final OneToOneConcurrentArrayQueue4<Integer> queue = new OneToOneConcurrentArrayQueue4<Integer>(4);
+        queue.add(valueOf(1));
+        queue.add(valueOf(2));
+
+        assertTrue(queue.contains(valueOf(2)));
+        assertFalse(queue.contains(valueOf(3)));
+        assertTrue(queue.containsAll(Arrays.asList(valueOf(1), valueOf(2))));
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void shouldRejectNullElement()
+    {
+        new OneToOneConcurrentArrayQueue4<Integer>(4).offer(null);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void shouldThrowOnAddWhenFull()
+    {
+        final OneToOneConcurrentArrayQueue4<Integer> queue = new OneToOneConcurrentArrayQueue4<Integer>(2);
+        queue.add(valueOf(1));
+        queue.add(valueOf(2));
+        queue.add(valueOf(3));
+    }
+
+    @Test(expected = NoSuchElementException.class)
+    public void shouldThrowOnRemoveWhenEmpty()
+    {
+        new OneToOneConcurrentArrayQueue4<Integer>(4).remove();
+    }
+
+    @Test
+    public void shouldTransferInOrderBetweenThreads() throws Exception
+    {
+        final int repetitions = 1000 * 1000;
+        final OneToOneConcurrentArrayQueue4<Integer> queue = new OneToOneConcurrentArrayQueue4<Integer>(64);
+
+        final Thread producer = new Thread(
+            () ->
+            {
+                for (int i = 0; i < repetitions; i++)
+                {
+                    final Integer value = valueOf(i);
+                    while (!queue.offer(value))
+                    {
+                        Thread.yield();
+                    }
+                }
+            });
+        producer.start();
+
+        for (int i = 0; i < repetitions;)
+        {
+            final Integer value = queue.poll();
+            if (null == value)
+            {
+                Thread.yield();
+                continue;
+            }
+
+            assertThat(value, is(valueOf(i++)));
+        }
+
+        producer.join();
+        assertTrue(queue.isEmpty());
+    }
+}
@@ -0,0 +1,82 @@
+/*
+ * Copyright 2016 Real Logic Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.co.real_logic.queues;
+
+import org.junit.Test;
+
+import static java.lang.Integer.valueOf;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+public class OneToOneConcurrentChunkedArrayQueueTest
+{
+    @Test
+    public void shouldGrowBeyondChunkSizeAndPollInOrder()
+    {
+        final OneToOneConcurrentChunkedArrayQueue<Integer> queue = new OneToOneConcurrentChunkedArrayQueue<Integer>(4, 2);
+
+        for (int i = 0; i < 10; i++)
+        {
+            assertTrue(queue.offer(valueOf(i)));
+        }
+
+        assertThat(valueOf(queue.size()), is(valueOf(10)));
+        assertTrue(queue.contains(valueOf(9)));
+        assertFalse(queue.contains(valueOf(10)));
+
+        for (int i = 0; i < 10; i++)
+        {
+            assertThat(queue.peek(), is(valueOf(i)));
+            assertThat(queue.poll(), is(valueOf(i)));
+        }
+
+        assertNull(queue.poll());
+        assertNull(queue.peek());
+    }
+
+    @Test
+    public void shouldReuseChunksOnceWarmedUp()
+    {
+        final OneToOneConcurrentChunkedArrayQueue<Integer> queue = new OneToOneConcurrentChunkedArrayQueue<Integer>(4, 4);
+
+        for (int i = 0; i < 1000; i++)
+        {
+            queue.offer(valueOf(i));
+            queue.offer(valueOf(i));
+            queue.offer(valueOf(i));
+            queue.poll();
+            queue.poll();
+            queue.poll();
+        }
+
+        final long chunksAllocated = queue.chunksAllocated();
+        for (int i = 0; i < 1000; i++)
+        {
+            queue.offer(valueOf(i));
+            queue.offer(valueOf(i));
+            queue.offer(valueOf(i));
+            queue.poll();
+            queue.poll();
+            queue.poll();
+        }
+
+        assertThat(Long.valueOf(queue.chunksAllocated()), is(Long.valueOf(chunksAllocated)));
+        assertTrue(chunksAllocated <= 3);
+    }
+}
@@ -0,0 +1,132 @@
+/*
+ * Copyright 2016 Real Logic Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.co.real_logic.queues;
+
+import org.junit.Test;
+
+import static java.lang.Integer.valueOf;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+public class OneToOneConcurrentIntQueueTest
+{
+    private static final int NULL_VALUE = -1;
+
+    private final OneToOneConcurrentIntQueue queue = new OneToOneConcurrentIntQueue(4, NULL_VALUE);
+
+    @Test
+    public void shouldReturnNullValueWhenEmpty()
+    {
+        assertTrue(queue.isEmpty());
+        assertThat(valueOf(queue.pollInt()), is(valueOf(NULL_VALUE)));
+        assertThat(valueOf(queue.peekInt()), is(valueOf(NULL_VALUE)));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectOfferOfNullValue()
+    {
+        queue.offerInt(NULL_VALUE);
+    }
+
+    @Test
+    public void shouldRejectOfferWhenFull()
+    {
+        for (int i = 0; i < queue.capacity(); i++)
+        {
+            assertTrue(queue.offerInt(i));
+        }
+
+        assertFalse(queue.offerInt(99));
+        assertThat(valueOf(queue.size()), is(valueOf(4)));
+
+        assertThat(valueOf(queue.pollInt()), is(valueOf(0)));
+        assertTrue(queue.offerInt(99));
+    }
+
+    @Test
+    public void shouldPollInOrderAcrossWrap()
+    {
+        for (int i = 0; i < 3; i++)
+        {
+            queue.offerInt(i);
+        }
+
+        for (int i = 0; i < 3; i++)
+        {
+            assertThat(valueOf(queue.pollInt()), is(valueOf(i)));
+        }
+
+        for (int i = 3; i < 7; i++)
+        {
+            assertTrue(queue.offerInt(i));
+        }
+
+        for (int i = 3; i < 7; i++)
+        {
+            assertThat(valueOf(queue.peekInt()), is(valueOf(i)));
+            assertThat(valueOf(queue.pollInt()), is(valueOf(i)));
+        }
+
+        assertThat(valueOf(queue.pollInt()), is(valueOf(NULL_VALUE)));
+    }
+
+    @Test
+    public void shouldClearFromConsumer()
+    {
+        queue.offerInt(1);
+        queue.offerInt(2);
+
+        queue.clear();
+
+        assertTrue(queue.isEmpty());
+        assertThat(valueOf(queue.pollInt()), is(valueOf(NULL_VALUE)));
+        assertTrue(queue.offerInt(3));
+        assertThat(valueOf(queue.pollInt()), is(valueOf(3)));
+    }
+
+    @Test
+    public void shouldExchangeValuesInOrderBetweenThreads() throws Exception
+    {
+        final int count = 100_000;
+        final Thread producer = new Thread(
+            () ->
+            {
+                for (int i = 0; i < count; i++)
+                {
+                    while (!queue.offerInt(i))
+                    {
+                        Thread.yield();
+                    }
+                }
+            });
+        producer.start();
+
+        for (int i = 0; i < count; i++)
+        {
+            int value;
+            while (NULL_VALUE == (value = queue.pollInt()))
+            {
+                Thread.yield();
+            }
+
+            assertThat(valueOf(value), is(valueOf(i)));
+        }
+
+        producer.join();
+    }
+}
@@ -0,0 +1,153 @@
+/*
+ * Copyright 2016 Real Logic Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.co.real_logic.queues;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static java.lang.Integer.valueOf;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+public class OneToOneConflatingQueueTest
+{
+    @Test
+    public void shouldReplacePendingValueAndKeepOrderOfFirstArrival()
+    {
+        final OneToOneConflatingQueue<String> queue = new OneToOneConflatingQueue<String>(8);
+        final List<String> drained = new ArrayList<String>();
+
+        queue.offer(7, "a1");
+        queue.offer(3, "b1");
+        queue.offer(7, "a2");
+        queue.offer(9, "c1");
+        queue.offer(3, "b2");
+
+        assertThat(valueOf(queue.size()), is(valueOf(3)));
+        assertThat(Long.valueOf(queue.conflatedCount()), is(Long.valueOf(2)));
+
+        queue.drain((key, value) -> drained.add(key + "=" + value), Integer.MAX_VALUE);
+
+        assertThat(drained, is(Arrays.asList("7=a2", "3=b2", "9=c1")));
+        assertTrue(queue.isEmpty());
+    }
+
+    @Test
+    public void shouldAppendAgainOnceKeyHasBeenDrained()
+    {
+        final OneToOneConflatingQueue<String> queue = new OneToOneConflatingQueue<String>(4);
+        final List<String> drained = new ArrayList<String>();
+
+        queue.offer(1, "x1");
+        queue.drain((key, value) -> drained.add(value), 1);
+        queue.offer(1, "x2");
+        queue.offer(1, "x3");
+        queue.drain((key, value) -> drained.add(value), 1);
+
+        assertThat(drained, is(Arrays.asList("x1", "x3")));
+    }
+
+    @Test
+    public void shouldConflateWhenFull()
+    {
+        final OneToOneConflatingQueue<String> queue = new OneToOneConflatingQueue<String>(2);
+        final List<String> drained = new ArrayList<String>();
+
+        assertTrue(queue.offer(1, "a"));
+        assertTrue(queue.offer(2, "b"));
+        assertFalse(queue.offer(3, "c"));
+        assertTrue(queue.offer(1, "a2"));
+
+        queue.drain((key, value) -> drained.add(value), Integer.MAX_VALUE);
+
+        assertThat(drained, is(Arrays.asList("a2", "b")));
+    }
+
+    @Test
+    public void shouldTrackKeysAcrossManyWraps()
+    {
+        final OneToOneConflatingQueue<Long> queue = new OneToOneConflatingQueue<Long>(16);
+        final long[] lastValue = new long[64];
+
+        for (long i = 0; i < 10 * 1000; i++)
+        {
+            final long key = (i * 31) % 64;
+            while (!queue.offer(key, Long.valueOf(i)))
+            {
+                queue.drain((k, value) -> lastValue[(int)k] = value.longValue(), 3);
+            }
+        }
+
+        queue.drain((k, value) -> lastValue[(int)k] = value.longValue(), Integer.MAX_VALUE);
+
+        for (long i = 10 * 1000 - 64; i < 10 * 1000; i++)
+        {
+            assertThat(Long.valueOf(lastValue[(int)((i * 31) % 64)]), is(Long.valueOf(i)));
+        }
+    }
+
+    @Test
+    public void shouldOnlyDeliverNewerValuesPerKeyWhenContended() throws Exception
+    {
+        final int keyCount = 10;
+        final int repetitions = 200 * 1000;
+        final OneToOneConflatingQueue<Integer> queue = new OneToOneConflatingQueue<Integer>(8);
+
+        final Thread producer = new Thread(
+            () ->
+            {
+                for (int i = 0; i < repetitions; i++)
+                {
+                    while (!queue.offer(i % keyCount, valueOf(i)))
+                    {
+                        Thread.yield();
+                    }
+                }
+            });
+        producer.start();
+
+        final int[] lastSeen = new int[keyCount];
+        Arrays.fill(lastSeen, -1);
+        final ConflatedValueHandler<Integer> handler =
+            (key, value) ->
+            {
+                assertThat(valueOf((int)(value.intValue() % keyCount)), is(valueOf((int)key)));
+                assertTrue(value.intValue() > lastSeen[(int)key]);
+                lastSeen[(int)key] = value.intValue();
+            };
+
+        while (producer.isAlive() || !queue.isEmpty())
+        {
+            if (0 == queue.drain(handler, 4))
+            {
+                Thread.yield();
+            }
+        }
+
+        producer.join();
+        queue.drain(handler, Integer.MAX_VALUE);
+
+        for (int key = 0; key < keyCount; key++)
+        {
+            assertThat(valueOf(lastSeen[key]), is(valueOf(repetitions - keyCount + key)));
+        }
+    }
+}
@@ -0,0 +1,76 @@
+/*
+ * Copyright 2016 Real Logic Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.co.real_logic.queues;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static java.lang.Long.valueOf;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+public class OneToOneEventRingTest
+{
+    private final OneToOneEventRing<MutableEvent> ring =
+        new OneToOneEventRing<MutableEvent>(4, MutableEvent.class, (initArgs) -> new MutableEvent());
+
+    @Test
+    public void shouldClaimUntilFull()
+    {
+        for (long i = 0; i < 4; i++)
+        {
+            assertThat(valueOf(ring.claim()), is(valueOf(i)));
+        }
+
+        assertThat(valueOf(ring.claim()), is(valueOf(OneToOneEventRing.FULL)));
+    }
+
+    @Test
+    public void shouldReuseEntriesInPlace()
+    {
+        final List<MutableEvent> seen = new ArrayList<MutableEvent>();
+        final List<Long> values = new ArrayList<Long>();
+
+        for (long i = 0; i < 10; i++)
+        {
+            final long sequence = ring.claim();
+            ring.get(sequence).value = i * 10;
+            ring.publish(sequence);
+
+            assertThat(valueOf(ring.read(
+                (event, seq) ->
+                {
+                    seen.add(event);
+                    values.add(event.value);
+                },
+                10)), is(valueOf(1)));
+        }
+
+        for (int i = 0; i < 10; i++)
+        {
+            assertThat(values.get(i), is(valueOf(i * 10)));
+            assertTrue(seen.get(i) == seen.get(i % 4));
+        }
+    }
+
+    public static class MutableEvent
+    {
+        private long value;
+    }
+}
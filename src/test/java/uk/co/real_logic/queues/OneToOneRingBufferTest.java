@@ -0,0 +1,142 @@
+/*
+ * Copyright 2016 Real Logic Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.co.real_logic.queues;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static java.lang.Integer.valueOf;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+public class OneToOneRingBufferTest
+{
+    private static final int CAPACITY = 1024;
+    private static final int MSG_TYPE_ID = 7;
+
+    private final OneToOneRingBuffer ringBuffer = new OneToOneRingBuffer(CAPACITY);
+    private final List<String> messages = new ArrayList<String>();
+    private final MessageHandler handler =
+        (msgTypeId, buffer, index, length) ->
+        {
+            assertThat(valueOf(msgTypeId), is(valueOf(MSG_TYPE_ID)));
+            final byte[] bytes = new byte[length];
+            for (int i = 0; i < length; i++)
+            {
+                bytes[i] = buffer.get(index + i);
+            }
+            messages.add(new String(bytes));
+        };
+
+    @Test
+    public void shouldWriteAndReadAlignedRecords()
+    {
+        assertTrue(write("a"));
+        assertTrue(write("abcdefghij"));
+
+        assertThat(valueOf(ringBuffer.size()), is(valueOf(16 + 24)));
+        assertThat(valueOf(ringBuffer.read(handler, 10)), is(valueOf(2)));
+        assertThat(messages.get(0), is("a"));
+        assertThat(messages.get(1), is("abcdefghij"));
+        assertThat(valueOf(ringBuffer.size()), is(valueOf(0)));
+    }
+
+    @Test
+    public void shouldRespectReadLimit()
+    {
+        write("one");
+        write("two");
+        write("three");
+
+        assertThat(valueOf(ringBuffer.read(handler, 2)), is(valueOf(2)));
+        assertThat(valueOf(ringBuffer.read(handler, 2)), is(valueOf(1)));
+        assertThat(messages.get(2), is("three"));
+    }
+
+    @Test
+    public void shouldInsertPaddingAtWrapAndContinueFromStart()
+    {
+        final String message = "0123456789012345678901234567890123456789012345678901234567890123456789012345";
+        final int recordLength = OneToOneRingBuffer.align(message.length() + OneToOneRingBuffer.HEADER_LENGTH, 8);
+        int written = 0;
+        while (written + recordLength <= CAPACITY)
+        {
+            assertTrue(write(message));
+            written += recordLength;
+        }
+
+        assertFalse(write(message));
+        assertThat(valueOf(ringBuffer.read(handler, 2)), is(valueOf(2)));
+        assertTrue(write(message));
+
+        int readCount = 0;
+        int count;
+        while ((count = ringBuffer.read(handler, Integer.MAX_VALUE)) > 0)
+        {
+            readCount += count;
+        }
+
+        assertThat(valueOf(readCount), is(valueOf(written / recordLength - 2 + 1)));
+        for (final String m : messages)
+        {
+            assertThat(m, is(message));
+        }
+        assertThat(valueOf(ringBuffer.size()), is(valueOf(0)));
+    }
+
+    @Test
+    public void shouldCommitClaimedMessageAfterPaddingAtWrap()
+    {
+        final byte[] bytes = new byte[100];
+        final int alignedLength = OneToOneRingBuffer.align(bytes.length + OneToOneRingBuffer.HEADER_LENGTH, 8);
+        final int recordsToWrap = CAPACITY / alignedLength;
+        for (int i = 0; i < recordsToWrap; i++)
+        {
+            assertTrue(ringBuffer.write(MSG_TYPE_ID, bytes, 0, bytes.length));
+        }
+        ringBuffer.read(handler, Integer.MAX_VALUE);
+        messages.clear();
+
+        final int index = ringBuffer.tryClaim(MSG_TYPE_ID, 9);
+        assertThat(valueOf(index), is(valueOf(OneToOneRingBuffer.HEADER_LENGTH)));
+        assertThat(valueOf(ringBuffer.size()), is(valueOf(0)));
+
+        ringBuffer.buffer().put(index, (byte)'a');
+        ringBuffer.putBytes(index + 1, "bcdefghi".getBytes(), 0, 8);
+        ringBuffer.commit(index);
+
+        assertThat(valueOf(ringBuffer.size()), is(valueOf(CAPACITY - recordsToWrap * alignedLength + 24)));
+        assertThat(valueOf(ringBuffer.read(handler, Integer.MAX_VALUE)), is(valueOf(1)));
+        assertThat(messages.get(0), is("abcdefghi"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectMessageLongerThanMaxMsgLength()
+    {
+        final byte[] bytes = new byte[ringBuffer.maxMsgLength() + 1];
+        ringBuffer.write(MSG_TYPE_ID, bytes, 0, bytes.length);
+    }
+
+    private boolean write(final String message)
+    {
+        final byte[] bytes = message.getBytes();
+        return ringBuffer.write(MSG_TYPE_ID, bytes, 0, bytes.length);
+    }
+}
@@ -0,0 +1,83 @@
+/*
+ * Copyright 2016 Real Logic Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.co.real_logic.queues;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static java.lang.Integer.valueOf;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.junit.Assert.assertThat;
+
+public class QueueDrainAgentTest
+{
+    private final QueueDrainAgent<Integer> agent = new QueueDrainAgent<Integer>("test-agent", 2);
+    private final List<Integer> received = new ArrayList<Integer>();
+
+    @Test
+    public void shouldReturnNoWorkWithoutQueues()
+    {
+        assertThat(valueOf(agent.doWork()), is(valueOf(0)));
+    }
+
+    @Test
+    public void shouldBoundWorkPerQueuePerDutyCycle()
+    {
+        final OneToOneConcurrentArrayQueue3<Integer> busyQueue = new OneToOneConcurrentArrayQueue3<Integer>(16);
+        final OneToOneConcurrentArrayQueue3<Integer> quietQueue = new OneToOneConcurrentArrayQueue3<Integer>(16);
+        final QueueDrainAgent.Subscription<Integer> busy = agent.addQueue(busyQueue, received::add);
+        final QueueDrainAgent.Subscription<Integer> quiet = agent.addQueue(quietQueue, received::add);
+
+        for (int i = 0; i < 10; i++)
+        {
+            busyQueue.offer(valueOf(i));
+        }
+        quietQueue.offer(valueOf(100));
+
+        assertThat(valueOf(agent.doWork()), is(valueOf(3)));
+        assertThat(received.contains(valueOf(100)), is(Boolean.TRUE));
+        assertThat(Long.valueOf(busy.drainedCount()), is(Long.valueOf(2)));
+        assertThat(Long.valueOf(quiet.drainedCount()), is(Long.valueOf(1)));
+
+        int totalWork = 3;
+        int workCount;
+        while ((workCount = agent.doWork()) > 0)
+        {
+            assertThat(valueOf(workCount), is(valueOf(2)));
+            totalWork += workCount;
+        }
+
+        assertThat(valueOf(totalWork), is(valueOf(11)));
+        assertThat(Long.valueOf(busy.drainedCount()), is(Long.valueOf(10)));
+    }
+
+    @Test
+    public void shouldNotChangeSubscriptionsThroughReturnedArray()
+    {
+        final OneToOneConcurrentArrayQueue3<Integer> queue = new OneToOneConcurrentArrayQueue3<Integer>(16);
+        final QueueDrainAgent.Subscription<Integer> subscription = agent.addQueue(queue, received::add);
+
+        agent.subscriptions()[0] = null;
+        queue.offer(valueOf(7));
+
+        assertThat(agent.subscriptions()[0], sameInstance(subscription));
+        assertThat(valueOf(agent.doWork()), is(valueOf(1)));
+        assertThat(received.get(0), is(valueOf(7)));
+    }
+}
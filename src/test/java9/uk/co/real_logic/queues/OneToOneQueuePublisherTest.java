@@ -0,0 +1,193 @@
+/*
+ * Copyright 2016 Real Logic Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.co.real_logic.queues;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Flow;
+
+import static java.lang.Integer.valueOf;
+import static org.hamcrest.CoreMatchers.instanceOf;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+public class OneToOneQueuePublisherTest
+{
+    private final OneToOneQueuePublisher<Integer> publisher = new OneToOneQueuePublisher<>(4, 16);
+    private final RecordingSubscriber subscriber = new RecordingSubscriber();
+
+    @Test
+    public void shouldDeliverNoMoreThanRequested()
+    {
+        publisher.subscribe(subscriber);
+        offer(0, 4);
+
+        subscriber.subscription.request(3);
+        assertThat(valueOf(publisher.doWork()), is(valueOf(3)));
+        assertThat(valueOf(publisher.doWork()), is(valueOf(0)));
+        assertThat(subscriber.received, is(List.of(valueOf(0), valueOf(1), valueOf(2))));
+        assertThat(Long.valueOf(publisher.demand()), is(Long.valueOf(0)));
+
+        subscriber.subscription.request(2);
+        assertThat(valueOf(publisher.doWork()), is(valueOf(1)));
+        assertThat(subscriber.received, is(List.of(valueOf(0), valueOf(1), valueOf(2), valueOf(3))));
+        assertThat(Long.valueOf(publisher.demand()), is(Long.valueOf(1)));
+    }
+
+    @Test
+    public void shouldCapUnboundedDemandAtMaxValue()
+    {
+        publisher.subscribe(subscriber);
+
+        subscriber.subscription.request(Long.MAX_VALUE);
+        subscriber.subscription.request(1);
+        assertThat(Long.valueOf(publisher.demand()), is(Long.valueOf(Long.MAX_VALUE)));
+
+        offer(0, 4);
+        assertThat(valueOf(publisher.doWork()), is(valueOf(4)));
+        assertThat(Long.valueOf(publisher.demand()), is(Long.valueOf(Long.MAX_VALUE)));
+    }
+
+    @Test
+    public void shouldSignalBackpressureWhenDemandIsExhausted()
+    {
+        publisher.subscribe(subscriber);
+        offer(0, 4);
+
+        assertFalse(publisher.offer(valueOf(4)));
+        assertThat(valueOf(publisher.doWork()), is(valueOf(0)));
+        assertFalse(publisher.offer(valueOf(4)));
+
+        subscriber.subscription.request(2);
+        assertThat(valueOf(publisher.doWork()), is(valueOf(2)));
+        assertTrue(publisher.offer(valueOf(4)));
+        assertTrue(publisher.offer(valueOf(5)));
+        assertFalse(publisher.offer(valueOf(6)));
+    }
+
+    @Test
+    public void shouldSignalErrorForNonPositiveRequest()
+    {
+        publisher.subscribe(subscriber);
+        offer(0, 2);
+
+        subscriber.subscription.request(0);
+        publisher.doWork();
+
+        assertThat(subscriber.error, instanceOf(IllegalArgumentException.class));
+        assertTrue(subscriber.received.isEmpty());
+
+        subscriber.subscription.request(2);
+        assertThat(valueOf(publisher.doWork()), is(valueOf(0)));
+        assertTrue(subscriber.received.isEmpty());
+        assertFalse(subscriber.completed);
+    }
+
+    @Test
+    public void shouldStopDeliveringAndRejectOffersAfterCancel()
+    {
+        publisher.subscribe(subscriber);
+        offer(0, 2);
+
+        subscriber.subscription.request(1);
+        assertThat(valueOf(publisher.doWork()), is(valueOf(1)));
+
+        subscriber.subscription.cancel();
+        subscriber.subscription.request(1);
+        assertThat(valueOf(publisher.doWork()), is(valueOf(0)));
+
+        assertTrue(publisher.isCancelled());
+        assertFalse(publisher.offer(valueOf(2)));
+        assertThat(subscriber.received, is(List.of(valueOf(0))));
+        assertThat(subscriber.error, nullValue());
+        assertFalse(subscriber.completed);
+    }
+
+    @Test
+    public void shouldCompleteOnceElementsOfferedBeforeCloseAreDelivered()
+    {
+        publisher.subscribe(subscriber);
+        offer(0, 2);
+        publisher.close();
+
+        publisher.doWork();
+        assertFalse(subscriber.completed);
+
+        subscriber.subscription.request(2);
+        assertThat(valueOf(publisher.doWork()), is(valueOf(2)));
+        assertThat(valueOf(publisher.doWork()), is(valueOf(0)));
+        assertTrue(subscriber.completed);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void shouldRejectOfferAfterClose()
+    {
+        publisher.close();
+        publisher.offer(valueOf(0));
+    }
+
+    @Test
+    public void shouldRejectSecondSubscriber()
+    {
+        final RecordingSubscriber secondSubscriber = new RecordingSubscriber();
+        publisher.subscribe(subscriber);
+        publisher.subscribe(secondSubscriber);
+
+        assertThat(subscriber.error, nullValue());
+        assertThat(secondSubscriber.error, instanceOf(IllegalStateException.class));
+    }
+
+    private void offer(final int from, final int to)
+    {
+        for (int i = from; i < to; i++)
+        {
+            assertTrue(publisher.offer(valueOf(i)));
+        }
+    }
+
+    static final class RecordingSubscriber implements Flow.Subscriber<Integer>
+    {
+        private final List<Integer> received = new ArrayList<>();
+        private Flow.Subscription subscription;
+        private Throwable error;
+        private boolean completed;
+
+        public void onSubscribe(final Flow.Subscription subscription)
+        {
+            this.subscription = subscription;
+        }
+
+        public void onNext(final Integer item)
+        {
+            received.add(item);
+        }
+
+        public void onError(final Throwable throwable)
+        {
+            error = throwable;
+        }
+
+        public void onComplete()
+        {
+            completed = true;
+        }
+    }
+}